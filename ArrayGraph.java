@@ -0,0 +1,88 @@
+import java.nio.IntBuffer;
+
+/**
+    An IntGraph kept in two int buffers.
+
+    This is the compressed sparse row layout of CompactGraph
+    without anything else: offsets.get(v) to offsets.get(v+1)-1
+    are the adjacency slots of vertex v, and targets holds the
+    neighbor in each slot. The buffers can sit on the heap or be
+    mapped straight from a file, which is how snapshots are
+    opened without reading them.
+*/
+public final class ArrayGraph implements IntGraph {
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+
+    /**
+        New ArrayGraph instance.
+        @param o Offsets, one more than there are vertices.
+        @param t Targets, one per adjacency slot.
+    */
+    public ArrayGraph(IntBuffer o, IntBuffer t) {
+        this.offsets = o;
+        this.targets = t;
+    }
+
+    /**
+        Undirected graph from a list of edges.
+
+        Each edge shows up in the adjacencies of both its ends.
+        Neighbors of a vertex keep the order of the edges they
+        came from.
+
+        @param n Number of vertices.
+        @param from One end of each edge.
+        @param to Other end of each edge.
+        @return The graph.
+    */
+    public static ArrayGraph symmetric(int n, IntList from, IntList to) {
+        int m = from.size();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[2 * m];
+        for (int i = 0; i < m; i++) {
+            offsets[from.get(i) + 1]++;
+            offsets[to.get(i) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        int[] next = new int[n];
+        for (int i = 0; i < m; i++) {
+            int f = from.get(i);
+            int t = to.get(i);
+            targets[offsets[f] + next[f]++] = t;
+            targets[offsets[t] + next[t]++] = f;
+        }
+        return new ArrayGraph(IntBuffer.wrap(offsets), IntBuffer.wrap(targets));
+    }
+
+    @Override
+    public int order() {
+        return this.offsets.limit() - 1;
+    }
+
+    @Override
+    public int begin(int v) {
+        return this.offsets.get(v);
+    }
+
+    @Override
+    public int end(int v) {
+        return this.offsets.get(v + 1);
+    }
+
+    @Override
+    public int target(int k) {
+        return this.targets.get(k);
+    }
+
+    /**
+        Number of adjacency slots.
+        @return Sum of the degrees of all vertices.
+    */
+    public int slots() {
+        return this.targets.limit();
+    }
+}
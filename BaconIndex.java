@@ -0,0 +1,292 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+    Bacon numbers of everybody, computed once.
+
+    One breadth-first search from Bacon (a ParallelBfs) records,
+    for every vertex, its distance to Bacon and the vertex it was
+    reached from. That is exactly the parent chain Kevin keeps in
+    vertex labels, only in two int arrays that survive the search:
+    a path query then just follows parents, no traversal and no
+    relabeling needed.
+
+    Indexes can be saved next to the database file. The file
+    starts with the size, modification time and hash of the
+    database, so an index built for an older version of the
+    database is never used by accident. Opening an index only
+    hashes the database if its size or time changed, so a lookup
+    doesn't cost a pass over the database file.
+*/
+public final class BaconIndex {
+    private static final int MAGIC = 0x4261636e; // "Bacn"
+    private static final int VERSION = 1;
+    // Bytes of a key: size, modification time, SHA-256 digest.
+    private static final int KEY = 16 + 32;
+
+    private final int root;
+    private final int[] distance;
+    private final int[] parent;
+
+    private BaconIndex(int r, int[] d, int[] p) {
+        this.root = r;
+        this.distance = d;
+        this.parent = p;
+    }
+
+    /**
+        Build index with a parallel breadth-first search.
+        @param g Symmetric graph to search.
+        @param root Vertex id to measure distances to.
+        @return The index.
+    */
+    public static BaconIndex build(IntGraph g, int root) {
+        int[] distance = new int[g.order()];
+        int[] parent = new int[g.order()];
+        ParallelBfs.search(g, root, distance, parent);
+        return new BaconIndex(root, distance, parent);
+    }
+
+    /**
+        Vertex id distances are measured to.
+        @return The root of the search.
+    */
+    public int root() {
+        return this.root;
+    }
+
+    /**
+        Number of vertices the index covers.
+        @return Same as order() of the graph it was built from.
+    */
+    public int order() {
+        return this.distance.length;
+    }
+
+    /**
+        Distance to root.
+        @param v Vertex id.
+        @return Number of edges on a shortest path from v to the
+            root, or -1 if there is no path.
+    */
+    public int distance(int v) {
+        return this.distance[v];
+    }
+
+    /**
+        Next vertex on the way to root.
+        @param v Vertex id.
+        @return Neighbor of v one step closer to the root, or -1 if
+            v is the root or can't reach it.
+    */
+    public int parent(int v) {
+        return this.parent[v];
+    }
+
+    /**
+        Shortest path to root.
+        @param v Vertex id.
+        @return Vertex ids along the path, starting with v and
+            ending with the root, or null if there is no path.
+    */
+    public int[] path(int v) {
+        if (this.distance[v] < 0) {
+            return null;
+        }
+        int[] path = new int[this.distance[v] + 1];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = v;
+            v = this.parent[v];
+        }
+        return path;
+    }
+
+    /**
+        Hash of a file's contents.
+        @param file File to hash.
+        @return SHA-256 digest of the file.
+        @throws IOException If the file cannot be read.
+    */
+    public static byte[] hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JVM has SHA-256
+        }
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+        Key of a database file, for the headers of files made from
+        it: its size and modification time, then the hash of its
+        contents.
+        @param source Database file.
+        @return The key.
+        @throws IOException If the file cannot be read.
+    */
+    public static byte[] key(Path source) throws IOException {
+        return ByteBuffer.allocate(KEY).putLong(Files.size(source))
+            .putLong(Files.getLastModifiedTime(source).toMillis())
+            .put(hash(source)).array();
+    }
+
+    /**
+        Check a stored key against a database file.
+
+        Matching size and modification time count as a match
+        without reading the file; otherwise its contents are hashed
+        and compared, like Snapshot.isStale does.
+
+        @param stored Key read from a file header.
+        @param source Database file.
+        @return True if the key belongs to source as it is now.
+        @throws IOException If the file cannot be read.
+    */
+    public static boolean matches(byte[] stored, Path source)
+        throws IOException {
+        if (stored.length != KEY) {
+            return false;
+        }
+        ByteBuffer b = ByteBuffer.wrap(stored);
+        if (b.getLong(0) == Files.size(source) && b.getLong(8)
+              == Files.getLastModifiedTime(source).toMillis()) {
+            return true;
+        }
+        return Arrays.equals(Arrays.copyOfRange(stored, 16, KEY),
+            hash(source));
+    }
+
+    /**
+        Write index to file.
+
+        The file is replaced atomically, so concurrent readers see
+        either the old or the new index.
+
+        @param file File to write.
+        @param key Key of the database the index was built from.
+        @throws IOException If the file cannot be written.
+    */
+    public void save(Path file, byte[] key) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(key.length);
+            out.write(key);
+            out.writeInt(this.root);
+            out.writeInt(this.distance.length);
+            for (int d : this.distance) {
+                out.writeInt(d);
+            }
+            for (int p : this.parent) {
+                out.writeInt(p);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+        Read index from file.
+        @param file File to read.
+        @param key Key the index should have been saved with.
+        @return The index, or null if the file doesn't exist, is
+            damaged, or belongs to a different database.
+        @throws IOException If the file exists but cannot be read.
+    */
+    public static BaconIndex load(Path file, byte[] key) throws IOException {
+        return read(file, key, null);
+    }
+
+    /**
+        Read index for a database file from file.
+        @param file File to read.
+        @param source Database file the index should belong to.
+        @return The index, or null if the file doesn't exist, is
+            damaged, or belongs to a different database.
+        @throws IOException If a file exists but cannot be read.
+    */
+    public static BaconIndex load(Path file, Path source)
+        throws IOException {
+        return read(file, null, source);
+    }
+
+    // Read file, checking its key against key or else source.
+    private static BaconIndex read(Path file, byte[] key, Path source)
+        throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            byte[] stored = new byte[in.readInt()];
+            in.readFully(stored);
+            if (source == null ? !Arrays.equals(stored, key)
+                  : !matches(stored, source)) {
+                return null;
+            }
+            int root = in.readInt();
+            int n = in.readInt();
+            int[] distance = new int[n];
+            int[] parent = new int[n];
+            for (int i = 0; i < n; i++) {
+                distance[i] = in.readInt();
+            }
+            for (int i = 0; i < n; i++) {
+                parent[i] = in.readInt();
+            }
+            return new BaconIndex(root, distance, parent);
+        } catch (NoSuchFileException | EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+        Index for a database file, built only if needed.
+
+        Looks for filename + ".bacon" first; if that is missing or
+        stale, builds a new index from the database and saves it
+        there for next time.
+
+        @param filename Name of the database file.
+        @param db The database loaded from that file.
+        @param root Vertex id to measure distances to.
+        @return The index.
+        @throws IOException If a file cannot be read or written.
+    */
+    public static BaconIndex open(String filename, Database db, int root)
+        throws IOException {
+        Path file = Paths.get(filename + ".bacon");
+        Path source = Paths.get(filename);
+        BaconIndex index = load(file, source);
+        if (index == null || index.root != root
+              || index.order() != db.graph().order()) {
+            index = build(db.graph(), root);
+            index.save(file, key(source));
+        }
+        return index;
+    }
+}
@@ -0,0 +1,153 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+    Six Degrees of Kevin Bacon as a long-running server.
+
+    Loads the database once and then answers queries over a local
+    socket, so a lookup costs a few milliseconds instead of a JVM
+    start plus a full parse of the database.
+
+    The protocol is line-based. Each request is one line holding
+    either an actor's name, asking for a path from that actor to
+    Kevin Bacon, or two names separated by "/", asking for a path
+    between them. The answer is the path, one name per line just
+    like Kevin prints it, followed by an empty line. Problems are
+    reported as a single line starting with "Error:", again
+    followed by an empty line.
+
+    Every connection is served by its own thread. Queries go to a
+    QueryEngine, which shares the graph read-only and lends each
+    running query a pooled PathSearch, so idle connections don't
+    hold on to any per-vertex state. A query between actors in
+    different components gets its "Can't connect" answer without
+    a search.
+*/
+public final class BaconServer {
+    private static Database database;
+    private static QueryEngine engine;
+
+    // Shut up checkstyle.
+    private BaconServer() {}
+
+    // Answer one request line.
+    private static void answer(String line, PrintWriter out) {
+        String[] names = line.split("/");
+        String error = null;
+        int[] path = null;
+        if (names.length > 2) {
+            error = "Expected one or two names.";
+        } else {
+            String goal = names.length == 2 ? names[1] : "Bacon, Kevin";
+            int from = database.id(names[0]);
+            int to = database.id(goal);
+            if (from < 0) {
+                error = "Can't find " + names[0] + " in database.";
+            } else if (to < 0) {
+                error = "Can't find " + goal + " in database.";
+            } else {
+                path = engine.path(from, to);
+                if (path == null) {
+                    error = "Can't connect " + names[0] + " to " + goal + ".";
+                }
+            }
+        }
+
+        if (error != null) {
+            out.printf("Error: %s\n", error);
+        } else {
+            for (int v : path) {
+                out.print(database.name(v));
+                out.print('\n');
+            }
+        }
+        out.print('\n');
+        out.flush();
+    }
+
+    // Serve one connection until the client hangs up.
+    private static void serve(SocketChannel channel) {
+        try (SocketChannel c = channel;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                 Channels.newInputStream(c), StandardCharsets.UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                 Channels.newOutputStream(c), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                answer(line, out);
+            }
+        } catch (IOException e) {
+            System.err.printf("Error: %s\n", e.getMessage());
+        }
+    }
+
+    /**
+        Main method.
+
+        Usage: java BaconServer database port
+           or: java BaconServer database --unix socket
+
+        The TCP variant only listens on the loopback interface.
+
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly
+            or the socket can't be opened.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && !(args.length == 3
+              && args[1].equals("--unix"))) {
+            System.out.printf("Usage: java BaconServer database port\n"
+                + "   or: java BaconServer database --unix socket\n");
+            System.exit(1);
+        }
+
+        database = Database.load(args[0]);
+        // labels components up front, so actors who can't reach each
+        // other are turned down without a search; only single
+        // queries, so the engine never starts its workers
+        engine = new QueryEngine(database);
+
+        ServerSocketChannel server;
+        SocketAddress address;
+        if (args.length == 3) {
+            Path socket = Paths.get(args[2]);
+            Files.deleteIfExists(socket);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            address = UnixDomainSocketAddress.of(socket);
+        } else {
+            server = ServerSocketChannel.open();
+            address = new InetSocketAddress("127.0.0.1",
+                Integer.parseInt(args[1]));
+        }
+        server.bind(address);
+        System.out.printf("Serving %s on %s\n", args[0], address);
+
+        // one thread per connection; this tree targets Java 17, on
+        // Java 21 Executors.newVirtualThreadPerTaskExecutor() fits
+        ExecutorService pool = Executors.newCachedThreadPool();
+        while (true) {
+            final SocketChannel channel = server.accept();
+            pool.execute(new Runnable() {
+                public void run() {
+                    serve(channel);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,387 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+    Benchmarks for SparseGraph and Kevin.
+
+    Every benchmark is one operation timed over and over, in the
+    manner of JMH: a few warmup iterations to let the JIT settle,
+    then measured iterations of a fixed length, each reporting the
+    average time per operation. Results print as a table and can
+    also be written as JSON in the layout JMH uses for its -rf json
+    output (benchmark, mode, params, primaryMetric with score,
+    scoreError and rawData), so existing tools for comparing JMH
+    runs work on them and regressions show up in a diff.
+
+    Operations run on test.txt and on synthetic databases of 1000,
+    10000 and 100000 movies with random casts drawn from twice as
+    many actors, always the same for a size; the graph benchmarks
+    build their SparseGraph from the same data.
+
+        sparse.insert       build the graph, two edges per credit
+        sparse.remove       build it, then remove every edge
+        sparse.outgoing     walk the outgoing edges of every vertex
+        sparse.label        label and read back every vertex
+        sparse.clearLabels  label one vertex, then clear labels
+        sparse.toString     render the graph
+        kevin.readInput     read a database the way Kevin does
+        kevin.solveBacon    find a path to Bacon from whatever is
+                            farthest from him
+
+    Usage: java Bench [--quick] [--json file] [name...]
+    runs benchmarks whose name starts with one of the names given,
+    all of them if none; --quick takes one short iteration each,
+    enough to check that everything runs.
+*/
+public final class Bench {
+    private static final int[] SIZES = {1000, 10000, 100000};
+    private static final String BACON = "Bacon, Kevin";
+
+    // Results of operations go here so the JIT can't drop them.
+    private static volatile long sink;
+
+    private static int warmups = 3;
+    private static int iterations = 5;
+    private static long iterationNanos = 500000000L;
+
+    // Shut up checkstyle.
+    private Bench() {}
+
+    // One operation; returns anything that depends on its work.
+    private interface Op {
+        long run() throws IOException;
+    }
+
+    // Result of one benchmark.
+    private static final class Result {
+        private final String name;
+        private final String param;
+        private final double[] samples;
+
+        Result(String n, String p, double[] s) {
+            this.name = n;
+            this.param = p;
+            this.samples = s;
+        }
+
+        double mean() {
+            double sum = 0;
+            for (double s : this.samples) {
+                sum += s;
+            }
+            return sum / this.samples.length;
+        }
+
+        double deviation() {
+            if (this.samples.length < 2) {
+                return 0;
+            }
+            double mean = this.mean();
+            double sum = 0;
+            for (double s : this.samples) {
+                sum += (s - mean) * (s - mean);
+            }
+            return Math.sqrt(sum / (this.samples.length - 1));
+        }
+    }
+
+    // Synthetic database: movies with 2 to 12 different actors
+    // each, from a pool twice as large as the number of movies;
+    // Bacon is in one movie in twenty.
+    private static List<String[]> synthetic(int movies) {
+        Random random = new Random(movies);
+        int actors = 2 * movies;
+        List<String[]> lines = new ArrayList<String[]>();
+        for (int m = 0; m < movies; m++) {
+            int size = 2 + random.nextInt(11);
+            Set<String> cast = new LinkedHashSet<String>();
+            cast.add("Movie " + m);
+            if (m % 20 == 0) {
+                cast.add(BACON);
+            }
+            while (cast.size() <= size) {
+                cast.add("Actor " + random.nextInt(actors));
+            }
+            lines.add(cast.toArray(new String[0]));
+        }
+        return lines;
+    }
+
+    private static File write(List<String[]> lines) throws IOException {
+        File file = File.createTempFile("bench", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            for (String[] line : lines) {
+                out.println(String.join("/", line));
+            }
+        }
+        return file;
+    }
+
+    private static List<String[]> read(File file) throws IOException {
+        List<String[]> lines = new ArrayList<String[]>();
+        for (String line : Files.readAllLines(file.toPath())) {
+            lines.add(line.split("/"));
+        }
+        return lines;
+    }
+
+    // Graph of a database as Kevin builds it.
+    private static SparseGraph<String, String> build(List<String[]> lines) {
+        SparseGraph<String, String> g = new SparseGraph<String, String>();
+        Map<String, Vertex<String>> vertices =
+            new HashMap<String, Vertex<String>>();
+        for (String[] line : lines) {
+            Vertex<String> m = vertices.get(line[0]);
+            if (m == null) {
+                m = g.insert(line[0]);
+                vertices.put(line[0], m);
+            }
+            for (int i = 1; i < line.length; i++) {
+                Vertex<String> a = vertices.get(line[i]);
+                if (a == null) {
+                    a = g.insert(line[i]);
+                    vertices.put(line[i], a);
+                }
+                g.insert(m, a, "features");
+                g.insert(a, m, "acts in");
+            }
+        }
+        return g;
+    }
+
+    // Vertex farthest from Bacon, for the longest search.
+    private static String farthest(SparseGraph<String, String> g) {
+        Vertex<String> bacon = null;
+        for (Vertex<String> v : g.vertices()) {
+            if (v.get().equals(BACON)) {
+                bacon = v;
+            }
+        }
+        g.clearLabels();
+        ArrayDeque<Vertex<String>> q = new ArrayDeque<Vertex<String>>();
+        q.add(bacon);
+        g.label(bacon, bacon);
+        Vertex<String> last = bacon;
+        while (!q.isEmpty()) {
+            last = q.remove();
+            for (Edge<String> e : g.outgoing(last)) {
+                if (g.label(g.to(e)) == null) {
+                    g.label(g.to(e), last);
+                    q.add(g.to(e));
+                }
+            }
+        }
+        return last.get();
+    }
+
+    private static Result measure(String name, String param, Op op)
+        throws IOException {
+        for (int i = 0; i < warmups; i++) {
+            iteration(op);
+        }
+        double[] samples = new double[iterations];
+        for (int i = 0; i < iterations; i++) {
+            samples[i] = iteration(op);
+        }
+        Result r = new Result(name, param, samples);
+        System.out.printf(Locale.ROOT, "%-20s %-10s %14.3f +- %10.3f us/op\n",
+            name, param, r.mean(), r.deviation());
+        return r;
+    }
+
+    // Runs op for about one iteration length, at least once;
+    // returns microseconds per operation.
+    private static double iteration(Op op) throws IOException {
+        long ops = 0;
+        long result = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            result += op.run();
+            ops++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        sink += result;
+        return elapsed / 1e3 / ops;
+    }
+
+    private static boolean selected(String name, List<String> filters) {
+        if (filters.isEmpty()) {
+            return true;
+        }
+        for (String f : filters) {
+            if (name.startsWith(f)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void run(String param, File file, List<String> filters,
+          List<Result> results) throws IOException {
+        // the graph benchmarks' data is garbage by the time Kevin
+        // builds his own graph
+        String far = sparse(param, file, filters, results);
+        if (selected("kevin.readInput", filters)) {
+            results.add(measure("kevin.readInput", param, () -> {
+                Kevin.readInput(file.getPath(), far);
+                return 1;
+            }));
+        }
+        if (selected("kevin.solveBacon", filters)) {
+            Kevin.readInput(file.getPath(), far);
+            results.add(measure("kevin.solveBacon", param,
+                () -> Kevin.baconPath().size()));
+        }
+    }
+
+    // Graph benchmarks; returns the vertex farthest from Bacon.
+    @SuppressWarnings("unchecked") // typesafe because only Vertex labels
+    private static String sparse(String param, File file,
+          List<String> filters, List<Result> results) throws IOException {
+        List<String[]> lines = read(file);
+        SparseGraph<String, String> g = build(lines);
+        List<Vertex<String>> vertices = new ArrayList<Vertex<String>>();
+        for (Vertex<String> v : g.vertices()) {
+            vertices.add(v);
+        }
+        String far = farthest(g);
+
+        if (selected("sparse.insert", filters)) {
+            results.add(measure("sparse.insert", param,
+                () -> build(lines).ids()));
+        }
+        if (selected("sparse.remove", filters)) {
+            results.add(measure("sparse.remove", param, () -> {
+                SparseGraph<String, String> h = build(lines);
+                List<Edge<String>> edges = new ArrayList<Edge<String>>();
+                for (Edge<String> e : h.edges()) {
+                    edges.add(e);
+                }
+                for (Edge<String> e : edges) {
+                    h.remove(e);
+                }
+                return edges.size();
+            }));
+        }
+        if (selected("sparse.outgoing", filters)) {
+            results.add(measure("sparse.outgoing", param, () -> {
+                long n = 0;
+                for (Vertex<String> v : vertices) {
+                    for (Edge<String> e : g.outgoing(v)) {
+                        n += g.id(g.to(e));
+                    }
+                }
+                return n;
+            }));
+        }
+        if (selected("sparse.label", filters)) {
+            results.add(measure("sparse.label", param, () -> {
+                g.clearLabels();
+                for (Vertex<String> v : vertices) {
+                    g.label(v, v);
+                }
+                long n = 0;
+                for (Vertex<String> v : vertices) {
+                    n += g.id((Vertex<String>) g.label(v));
+                }
+                return n;
+            }));
+        }
+        if (selected("sparse.clearLabels", filters)) {
+            Vertex<String> first = vertices.get(0);
+            results.add(measure("sparse.clearLabels", param, () -> {
+                g.label(first, first);
+                g.clearLabels();
+                return g.label(first) == null ? 1 : 0;
+            }));
+        }
+        if (selected("sparse.toString", filters)) {
+            results.add(measure("sparse.toString", param,
+                () -> g.toString().length()));
+        }
+        return far;
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    // Results in the layout of JMH's JSON output.
+    private static void json(String filename, List<Result> results)
+        throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(filename))) {
+            out.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                StringBuilder raw = new StringBuilder();
+                for (int s = 0; s < r.samples.length; s++) {
+                    raw.append(s > 0 ? ", " : "").append(
+                        String.format(Locale.ROOT, "%.3f", r.samples[s]));
+                }
+                out.printf(Locale.ROOT, "  {\"benchmark\": %s, "
+                    + "\"mode\": \"avgt\", \"warmupIterations\": %d, "
+                    + "\"measurementIterations\": %d, "
+                    + "\"params\": {\"database\": %s}, "
+                    + "\"primaryMetric\": {\"score\": %.3f, "
+                    + "\"scoreError\": %.3f, \"scoreUnit\": \"us/op\", "
+                    + "\"rawData\": [[%s]]}}%s\n",
+                    quote(r.name), warmups, iterations, quote(r.param),
+                    r.mean(), r.deviation(), raw,
+                    i + 1 < results.size() ? "," : "");
+            }
+            out.println("]");
+        }
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If a database can't be written or read.
+    */
+    public static void main(String[] args) throws IOException {
+        String output = null;
+        List<String> filters = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--quick")) {
+                warmups = 0;
+                iterations = 1;
+                iterationNanos = 0;
+            } else if (args[i].equals("--json") && i + 1 < args.length) {
+                output = args[++i];
+            } else if (args[i].startsWith("--")) {
+                System.out.printf("Usage: java Bench [--quick] "
+                    + "[--json file] [name...]\n");
+                System.exit(1);
+            } else {
+                filters.add(args[i]);
+            }
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        File test = new File("test.txt");
+        if (test.exists()) {
+            run("test.txt", test, filters, results);
+        }
+        for (int size : SIZES) {
+            run(Integer.toString(size), write(synthetic(size)), filters,
+                results);
+        }
+        if (output != null) {
+            json(output, results);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+    Allocation of breadth-first search, iterables against cursors.
+
+    Loads a database into a SparseGraph with Kevin's own reader,
+    so this is the graph Kevin searches, then runs a full
+    breadth-first search from Kevin Bacon (or the first movie if
+    he's missing) over and over, once walking edges with
+    outgoing() and to(), once with a Cursor, and reports the time
+    and the bytes allocated per search as counted by the JVM for
+    the current thread. The queue is made once, big enough for
+    the whole database, and labels are cleared between runs, so
+    the cursor search should allocate next to nothing; the
+    iterable search copies every incidence list it looks at.
+
+    Usage: java BenchCursor database [runs]
+*/
+public final class BenchCursor {
+    // Shut up checkstyle.
+    private BenchCursor() {}
+
+    // One search, reported by how many vertices it reached.
+    private interface Search {
+        int run(Graph<String, String> g, Vertex<String> root,
+            ArrayDeque<Vertex<String>> q);
+    }
+
+    private static int iterables(Graph<String, String> g,
+          Vertex<String> root, ArrayDeque<Vertex<String>> q) {
+        q.add(root);
+        g.label(root, root);
+        int reached = 0;
+        while (!q.isEmpty()) {
+            Vertex<String> top = q.remove();
+            reached++;
+            for (Edge<String> e : g.outgoing(top)) {
+                Vertex<String> to = g.to(e);
+                if (g.label(to) == null) {
+                    g.label(to, top);
+                    q.add(to);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static int cursor(Graph<String, String> g,
+          Vertex<String> root, ArrayDeque<Vertex<String>> q) {
+        Cursor<String, String> c = g.cursor();
+        q.add(root);
+        g.label(root, root);
+        int reached = 0;
+        while (!q.isEmpty()) {
+            Vertex<String> top = q.remove();
+            reached++;
+            c.outgoing(top);
+            while (c.next()) {
+                Vertex<String> to = c.other();
+                if (g.label(to) == null) {
+                    g.label(to, top);
+                    q.add(to);
+                }
+            }
+        }
+        return reached;
+    }
+
+    // Bytes allocated by this thread so far.
+    private static long allocated() {
+        return ((com.sun.management.ThreadMXBean)
+            ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void measure(String name, Search s,
+          Graph<String, String> g, Vertex<String> root, int runs) {
+        // big enough to never grow
+        ArrayDeque<Vertex<String>> q = new ArrayDeque<Vertex<String>>(
+            1 << 22);
+        int reached = 0;
+        // warm up, then measure
+        for (int i = 0; i < runs; i++) {
+            g.clearLabels();
+            reached = s.run(g, root, q);
+        }
+        long bytes = 0;
+        long nanos = 0;
+        for (int i = 0; i < runs; i++) {
+            g.clearLabels();
+            long b = allocated();
+            long t = System.nanoTime();
+            s.run(g, root, q);
+            nanos += System.nanoTime() - t;
+            bytes += allocated() - b;
+        }
+        System.out.printf("%-10s %9d reached %10.2f ms/run %14d bytes/run\n",
+            name, reached, nanos / 1e6 / runs, bytes / runs);
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 2) {
+            System.out.printf("Usage: java BenchCursor database [runs]\n");
+            System.exit(1);
+        }
+        int runs = args.length == 2 ? Integer.parseInt(args[1]) : 10;
+
+        // the same graph Kevin searches
+        Kevin.readInput(args[0], null);
+        Graph<String, String> g = Kevin.graph();
+        Vertex<String> root = Kevin.bacon();
+        Iterator<Vertex<String>> first = g.vertices().iterator();
+        if (root == null && first.hasNext()) {
+            root = first.next();
+        }
+        if (root == null) {
+            System.out.printf("Error: Empty database.\n");
+            System.exit(1);
+        }
+
+        measure("iterables", BenchCursor::iterables, g, root, runs);
+        measure("cursor", BenchCursor::cursor, g, root, runs);
+    }
+}
@@ -0,0 +1,508 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+    An undirected bipartite graph.
+
+    Vertices sit on one of two sides, left or right, and every
+    edge joins a left vertex to a right vertex. An edge is stored
+    once, in a single incidence list per vertex, instead of as a
+    pair of directed edges; its element isn't stored at all but
+    comes from the direction it is crossed in: leftToRight from
+    the left side, rightToLeft from the right side. For a movie
+    database that is "features" from movies to actors and "acts
+    in" back.
+
+    Seen through the Graph interface every edge is both outgoing
+    and incoming at both of its ends, from() is always its left
+    end and to() always its right end. Use opposite() to cross
+    an edge from whichever end you're at, and element() to see
+    what it means in that direction.
+
+    @param <V> Type of vertex element
+    @param <E> Type of edge element
+*/
+public final class BipartiteGraph<V, E> implements Graph<V, E> {
+    private final class SideVertex implements Vertex<V> {
+        public List<UndirectedEdge> incident;
+        public boolean left;
+
+        public V data;
+        public Object label;
+        public int labelEpoch;
+        public boolean removed;
+
+        // for Graph.id, reused once removed
+        public int id;
+
+        public SideVertex(V d, boolean l, int i) {
+            this.incident = new ArrayList<UndirectedEdge>();
+            this.left = l;
+            this.id = i;
+            this.data = d;
+            this.label = null;
+            this.removed = false;
+        }
+
+        @Override
+        public V get() { return this.data; }
+        @Override
+        public void put(V v) { this.data = v; }
+
+        public BipartiteGraph<V, E> manufacturer() {
+            return this.removed ? null : BipartiteGraph.this;
+        }
+    }
+
+    private final class UndirectedEdge implements Edge<E> {
+        public SideVertex left;
+        public SideVertex right;
+
+        public Object label;
+        public int labelEpoch;
+        public boolean removed;
+
+        private UndirectedEdge(SideVertex l, SideVertex r) {
+            this.left = l;
+            this.right = r;
+            this.label = null;
+            this.removed = false;
+        }
+
+        @Override
+        public E get() { return BipartiteGraph.this.leftToRight; }
+        @Override
+        public void put(E e) {
+            throw new UnsupportedOperationException("Edge elements of a "
+                + "BipartiteGraph come from its sides.");
+        }
+
+        public BipartiteGraph<V, E> manufacturer() {
+            return this.removed ? null : BipartiteGraph.this;
+        }
+    }
+
+    // Walks an incidence list in place, either way.
+    private final class SideCursor implements Cursor<V, E> {
+        private List<UndirectedEdge> list = Collections.emptyList();
+        private SideVertex at;
+        private int next;
+        private UndirectedEdge current;
+        private int expected;
+
+        @Override
+        public void outgoing(Vertex<V> vertex) {
+            this.at = BipartiteGraph.this.validateVertex(vertex);
+            this.list = this.at.incident;
+            this.next = 0;
+            this.current = null;
+            this.expected = BipartiteGraph.this.modifications;
+        }
+
+        @Override
+        public void incoming(Vertex<V> vertex) {
+            this.outgoing(vertex);
+        }
+
+        @Override
+        public boolean next() {
+            if (this.expected != BipartiteGraph.this.modifications) {
+                throw new ConcurrentModificationException();
+            }
+            if (this.next == this.list.size()) {
+                this.current = null;
+                return false;
+            }
+            this.current = this.list.get(this.next++);
+            return true;
+        }
+
+        @Override
+        public Edge<E> edge() {
+            if (this.current == null) {
+                throw new NoSuchElementException("No current edge.");
+            }
+            return this.current;
+        }
+
+        @Override
+        public Vertex<V> other() {
+            if (this.current == null) {
+                throw new NoSuchElementException("No current edge.");
+            }
+            return this.current.left == this.at
+                ? this.current.right : this.current.left;
+        }
+    }
+
+    private final E leftToRight;
+    private final E rightToLeft;
+    private Collection<SideVertex> vertices;
+    private Collection<UndirectedEdge> edges;
+    // edge insertions and removals, so cursors notice them
+    private int modifications;
+    // Next vertex id never used, and ids of removed vertices.
+    private int nextId;
+    private IntList freeIds;
+    // Labels are only valid if stamped with the current epoch.
+    private int epoch;
+
+    /**
+        New BipartiteGraph instance.
+        @param l Element of every edge crossed from the left side.
+        @param r Element of every edge crossed from the right side.
+    */
+    public BipartiteGraph(E l, E r) {
+        this.leftToRight = l;
+        this.rightToLeft = r;
+        this.vertices = new ArrayList<SideVertex>();
+        this.edges = new ArrayList<UndirectedEdge>();
+        this.nextId = 0;
+        this.freeIds = new IntList();
+        this.epoch = 1;
+    }
+
+    @SuppressWarnings("unchecked") // We're typesafe because we use instanceof.
+    private SideVertex validateVertex(Vertex<V> v)
+        throws IllegalArgumentException {
+        if (v == null) {
+            throw new IllegalArgumentException("Inputted Vertex is null.");
+        } else if (!(v instanceof BipartiteGraph.SideVertex)) {
+            throw new IllegalArgumentException("Inputted Vertex unusable "
+                + "by BipartiteGraph.");
+        }
+
+        SideVertex validee = (SideVertex) v;
+        if (!(validee.manufacturer() == this)) {
+            throw new IllegalArgumentException("Inputted Vertex does not "
+                + "belong to this BipartiteGraph.");
+        }
+        return validee;
+    }
+
+    @SuppressWarnings("unchecked") // We're typesafe because we use instanceof.
+    private UndirectedEdge validateEdge(Edge<E> e)
+        throws IllegalArgumentException {
+        if (e == null) {
+            throw new IllegalArgumentException("Inputted Edge is null.");
+        } else if (!(e instanceof BipartiteGraph.UndirectedEdge)) {
+            throw new IllegalArgumentException("Inputted Edge unusable "
+                + "by BipartiteGraph.");
+        }
+        UndirectedEdge validee = (UndirectedEdge) e;
+        if (!(validee.manufacturer() == this)) {
+            throw new IllegalArgumentException("Inputted Edge does not "
+                + "belong to this BipartiteGraph.");
+        }
+        return validee;
+    }
+
+    /**
+        Insert new vertex on the left side.
+        @param v Element to insert.
+        @return Vertex position created to hold element.
+    */
+    @Override
+    public Vertex<V> insert(V v) {
+        return this.insert(v, true);
+    }
+
+    /**
+        Insert new vertex.
+        @param v Element to insert.
+        @param left True for the left side, false for the right.
+        @return Vertex position created to hold element.
+    */
+    public Vertex<V> insert(V v, boolean left) {
+        int id = this.freeIds.size() > 0
+            ? this.freeIds.removeLast() : this.nextId++;
+        SideVertex newVertex = new SideVertex(v, left, id);
+        this.vertices.add(newVertex);
+        return newVertex;
+    }
+
+    /**
+        Insert new edge.
+
+        The edge joins both vertices in both directions, so
+        inserting the same pair again either way round is a
+        duplicate.
+
+        @param from Vertex position where edge starts.
+        @param to Vertex position where edge ends, on the other side.
+        @param e Element of the edge in this direction; must be
+            leftToRight or rightToLeft, depending on the side of from.
+        @return Edge position created to hold element.
+        @throws IllegalArgumentException If vertex positions are
+            invalid or on the same side, if e doesn't match their
+            sides, or if this insertion would create a duplicate edge.
+    */
+    @Override
+    public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e) {
+        if (from == to) {
+            throw new IllegalArgumentException("Can't create self-loops.");
+        }
+        SideVertex f = this.validateVertex(from);
+        SideVertex t = this.validateVertex(to);
+        if (f.left == t.left) {
+            throw new IllegalArgumentException("Can't join vertices on "
+                + "the same side.");
+        }
+        E expected = f.left ? this.leftToRight : this.rightToLeft;
+        if (e == null ? expected != null : !e.equals(expected)) {
+            throw new IllegalArgumentException("Edge element doesn't "
+                + "match the sides.");
+        }
+
+        SideVertex l = f.left ? f : t;
+        SideVertex r = f.left ? t : f;
+        List<UndirectedEdge> search = l.incident.size() <= r.incident.size()
+            ? l.incident : r.incident;
+        for (UndirectedEdge d : search) {
+            if (d.left == l && d.right == r) {
+                throw new IllegalArgumentException("Can't insert "
+                    + "duplicate edges.");
+            }
+        }
+
+        UndirectedEdge insert = new UndirectedEdge(l, r);
+        l.incident.add(insert);
+        r.incident.add(insert);
+        this.edges.add(insert);
+        this.modifications++;
+        return insert;
+    }
+
+    @Override
+    public V remove(Vertex<V> vertex) {
+        SideVertex v = this.validateVertex(vertex);
+        if (!v.incident.isEmpty()) {
+            throw new IllegalArgumentException("Can't remove Vertex with "
+                + "incident edges");
+        }
+
+        v.removed = true;
+        this.vertices.remove(v);
+        this.freeIds.add(v.id);
+
+        return v.data;
+    }
+
+    @Override
+    public E remove(Edge<E> edge) {
+        UndirectedEdge e = this.validateEdge(edge);
+
+        e.removed = true;
+        e.left.incident.remove(e);
+        e.right.incident.remove(e);
+        this.edges.remove(e);
+        this.modifications++;
+
+        return this.leftToRight;
+    }
+
+    @Override
+    public Iterable<Vertex<V>> vertices() {
+        Collection<Vertex<V>> verts = new ArrayList<Vertex<V>>();
+        verts.addAll(this.vertices);
+        return verts;
+    }
+
+    @Override
+    public Iterable<Edge<E>> edges() {
+        Collection<Edge<E>> edgs = new ArrayList<Edge<E>>();
+        edgs.addAll(this.edges);
+        return edgs;
+    }
+
+    @Override
+    public int id(Vertex<V> vertex) {
+        return this.validateVertex(vertex).id;
+    }
+
+    @Override
+    public int ids() {
+        return this.nextId;
+    }
+
+    /**
+        Edges of vertex.
+        @param vertex Vertex position to explore.
+        @return All edges of the vertex, same as incoming(); the
+          remove() method of the iterator doesn't affect the graph.
+        @throws IllegalArgumentException If vertex position
+            is invalid.
+    */
+    @Override
+    public Iterable<Edge<E>> outgoing(Vertex<V> vertex) {
+        SideVertex v = this.validateVertex(vertex);
+        Collection<Edge<E>> outs = new ArrayList<Edge<E>>();
+        outs.addAll(v.incident);
+        return outs;
+    }
+
+    /**
+        Edges of vertex.
+        @param vertex Vertex position to explore.
+        @return All edges of the vertex, same as outgoing(); the
+          remove() method of the iterator doesn't affect the graph.
+        @throws IllegalArgumentException If vertex position
+            is invalid.
+    */
+    @Override
+    public Iterable<Edge<E>> incoming(Vertex<V> vertex) {
+        return this.outgoing(vertex);
+    }
+
+    /**
+        Cursor over the edges of a vertex.
+        @return New cursor; outgoing() and incoming() both walk
+          all edges of a vertex, and other() is the opposite end.
+    */
+    @Override
+    public Cursor<V, E> cursor() {
+        return new SideCursor();
+    }
+
+    /**
+        Left end of edge.
+        @param edge Edge position to explore.
+        @return Vertex position on the left side.
+        @throws IllegalArgumentException If edge position
+            is invalid.
+    */
+    @Override
+    public Vertex<V> from(Edge<E> edge) {
+        return this.validateEdge(edge).left;
+    }
+
+    /**
+        Right end of edge.
+        @param edge Edge position to explore.
+        @return Vertex position on the right side.
+        @throws IllegalArgumentException If edge position
+            is invalid.
+    */
+    @Override
+    public Vertex<V> to(Edge<E> edge) {
+        return this.validateEdge(edge).right;
+    }
+
+    /**
+        Cross an edge.
+        @param vertex Vertex position at one end of the edge.
+        @param edge Edge position to cross.
+        @return Vertex position at the other end.
+        @throws IllegalArgumentException If either position is
+            invalid or the vertex isn't an end of the edge.
+    */
+    public Vertex<V> opposite(Vertex<V> vertex, Edge<E> edge) {
+        SideVertex v = this.validateVertex(vertex);
+        UndirectedEdge e = this.validateEdge(edge);
+        if (e.left == v) {
+            return e.right;
+        } else if (e.right == v) {
+            return e.left;
+        }
+        throw new IllegalArgumentException("Inputted Vertex is not an "
+            + "end of the Edge.");
+    }
+
+    /**
+        Element of an edge crossed from one of its ends.
+        @param vertex Vertex position the edge is crossed from.
+        @param edge Edge position to cross.
+        @return leftToRight or rightToLeft, by side of the vertex.
+        @throws IllegalArgumentException If either position is
+            invalid or the vertex isn't an end of the edge.
+    */
+    public E element(Vertex<V> vertex, Edge<E> edge) {
+        this.opposite(vertex, edge);
+        return this.isLeft(vertex) ? this.leftToRight : this.rightToLeft;
+    }
+
+    /**
+        Side of vertex.
+        @param vertex Vertex position to query.
+        @return True if the vertex is on the left side.
+        @throws IllegalArgumentException If vertex position
+            is invalid.
+    */
+    public boolean isLeft(Vertex<V> vertex) {
+        return this.validateVertex(vertex).left;
+    }
+
+    @Override
+    public void label(Vertex<V> vertex, Object l) {
+        SideVertex v = this.validateVertex(vertex);
+        if (l == null) {
+            throw new IllegalArgumentException("Can't label null.");
+        }
+        v.label = l;
+        v.labelEpoch = this.epoch;
+    }
+
+    @Override
+    public void label(Edge<E> edge, Object l) {
+        UndirectedEdge e = this.validateEdge(edge);
+        if (l == null) {
+            throw new IllegalArgumentException("Can't label null.");
+        }
+        e.label = l;
+        e.labelEpoch = this.epoch;
+    }
+
+    @Override
+    public Object label(Vertex<V> vertex) {
+        SideVertex v = this.validateVertex(vertex);
+        return v.labelEpoch == this.epoch ? v.label : null;
+    }
+
+    @Override
+    public Object label(Edge<E> edge) {
+        UndirectedEdge e = this.validateEdge(edge);
+        return e.labelEpoch == this.epoch ? e.label : null;
+    }
+
+    @Override
+    public void clearLabels() {
+        // old labels stay where they are but no longer count; only
+        // when the epoch runs out do they actually get cleared
+        this.epoch++;
+        if (this.epoch == Integer.MAX_VALUE) {
+            for (SideVertex v : this.vertices) {
+                v.label = null;
+                v.labelEpoch = 0;
+            }
+            for (UndirectedEdge e : this.edges) {
+                e.label = null;
+                e.labelEpoch = 0;
+            }
+            this.epoch = 1;
+        }
+    }
+
+    /**
+        Converts to GraphViz-compatible string format.
+
+        @return The string.
+    */
+    public String toString() {
+        StringBuilder result = new StringBuilder("graph {\n");
+
+        for (SideVertex v : this.vertices) {
+            result.append("  \"").append(v.data).append("\";\n");
+        }
+        for (UndirectedEdge e : this.edges) {
+            result.append("  \"").append(e.left.data).append("\" -- \"")
+                .append(e.right.data).append("\";\n");
+        }
+
+        result.append("}");
+        return result.toString();
+    }
+}
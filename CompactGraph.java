@@ -0,0 +1,542 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+    An immutable directed graph optimized for reading.
+
+    Adjacencies are kept in compressed sparse row form: one array
+    of offsets indexed by vertex id, and one array of neighbors
+    indexed by those offsets, for each direction. Edge ids are the
+    slots of the outgoing array, so edges of the same vertex are
+    stored next to each other. Positions only remember an id.
+
+    Labels work just like in SparseGraph; everything that would
+    change the shape of the graph throws an exception.
+
+    @param <V> Type of vertex element
+    @param <E> Type of edge element
+*/
+public final class CompactGraph<V, E> implements Graph<V, E>, IntGraph {
+    private final class CompactVertex implements Vertex<V> {
+        private final int id;
+
+        private CompactVertex(int i) {
+            this.id = i;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked") // only V's are ever stored
+        public V get() { return (V) CompactGraph.this.vertexData[this.id]; }
+        @Override
+        public void put(V v) { CompactGraph.this.vertexData[this.id] = v; }
+
+        public CompactGraph<V, E> manufacturer() {
+            return CompactGraph.this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CompactGraph.CompactVertex)) {
+                return false;
+            }
+            CompactGraph<?, ?>.CompactVertex that =
+                (CompactGraph<?, ?>.CompactVertex) o;
+            return that.manufacturer() == CompactGraph.this
+                && that.id == this.id;
+        }
+
+        @Override
+        public int hashCode() { return this.id; }
+    }
+
+    private final class CompactEdge implements Edge<E> {
+        private final int id;
+
+        private CompactEdge(int i) {
+            this.id = i;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked") // only E's are ever stored
+        public E get() { return (E) CompactGraph.this.edgeData[this.id]; }
+        @Override
+        public void put(E e) { CompactGraph.this.edgeData[this.id] = e; }
+
+        public CompactGraph<V, E> manufacturer() {
+            return CompactGraph.this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof CompactGraph.CompactEdge)) {
+                return false;
+            }
+            CompactGraph<?, ?>.CompactEdge that =
+                (CompactGraph<?, ?>.CompactEdge) o;
+            return that.manufacturer() == CompactGraph.this
+                && that.id == this.id;
+        }
+
+        @Override
+        public int hashCode() { return this.id; }
+    }
+
+    // Elements, indexed by vertex id and edge id respectively.
+    private final Object[] vertexData;
+    private final Object[] edgeData;
+
+    // Outgoing edges of v are edge ids outOffsets[v] up to
+    // outOffsets[v+1]-1; outTargets holds where each one leads.
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    // Start vertex of each edge id.
+    private final int[] sources;
+    // Incoming edges of v are inEdges[inOffsets[v]] up to
+    // inEdges[inOffsets[v+1]-1].
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    // Positions handed out so far, created on first use.
+    private final CompactVertex[] positions;
+
+    // Labels, allocated on first use and dropped by clearLabels.
+    private Object[] vertexLabels;
+    private Object[] edgeLabels;
+
+    /**
+        New CompactGraph instance.
+
+        Edge i leads from vertex from.get(i) to vertex to.get(i)
+        and carries element edges.get(i); vertex ids are indices
+        into the vertices list. Edges of the same start vertex keep
+        their relative order.
+
+        @param vertices Vertex elements, by vertex id.
+        @param from Start vertex id of each edge.
+        @param to End vertex id of each edge.
+        @param edges Edge elements, one per edge.
+        @throws IllegalArgumentException If the lists differ in
+            length, refer to missing vertices, or describe
+            self-loops or duplicate edges.
+    */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // no generic arrays
+    public CompactGraph(List<? extends V> vertices, IntList from,
+          IntList to, List<? extends E> edges)
+        throws IllegalArgumentException {
+        int n = vertices.size();
+        int m = edges.size();
+        if (from.size() != m || to.size() != m) {
+            throw new IllegalArgumentException("Edge lists differ in "
+                + "length.");
+        }
+
+        this.vertexData = vertices.toArray();
+        this.edgeData = new Object[m];
+        this.outOffsets = new int[n + 1];
+        this.outTargets = new int[m];
+        this.sources = new int[m];
+        this.inOffsets = new int[n + 1];
+        this.inEdges = new int[m];
+        this.positions = new CompactGraph.CompactVertex[n];
+
+        // count degrees, then turn counts into offsets
+        for (int i = 0; i < m; i++) {
+            int f = from.get(i);
+            int t = to.get(i);
+            if (f < 0 || f >= n || t < 0 || t >= n) {
+                throw new IllegalArgumentException("Edge refers to a "
+                    + "missing vertex.");
+            }
+            if (f == t) {
+                throw new IllegalArgumentException("Can't create "
+                    + "self-loops.");
+            }
+            this.outOffsets[f + 1]++;
+            this.inOffsets[t + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            this.outOffsets[v + 1] += this.outOffsets[v];
+            this.inOffsets[v + 1] += this.inOffsets[v];
+        }
+
+        // place edges, a stable counting sort by start vertex
+        int[] next = new int[n];
+        for (int i = 0; i < m; i++) {
+            int f = from.get(i);
+            int k = this.outOffsets[f] + next[f]++;
+            this.outTargets[k] = to.get(i);
+            this.sources[k] = f;
+            this.edgeData[k] = edges.get(i);
+        }
+        Arrays.fill(next, 0);
+        for (int k = 0; k < m; k++) {
+            int t = this.outTargets[k];
+            this.inEdges[this.inOffsets[t] + next[t]++] = k;
+        }
+
+        // a vertex sees each target at most once
+        Arrays.fill(next, -1);
+        for (int v = 0; v < n; v++) {
+            for (int k = this.outOffsets[v]; k < this.outOffsets[v + 1];
+                  k++) {
+                if (next[this.outTargets[k]] == v) {
+                    throw new IllegalArgumentException("Can't insert "
+                        + "duplicate edges.");
+                }
+                next[this.outTargets[k]] = v;
+            }
+        }
+    }
+
+    /**
+        Compact copy of another graph.
+
+        Vertex ids follow the order of g.vertices(), so position i
+        of that iteration corresponds to vertex(i) of the copy.
+        Labels are not copied.
+
+        @param g Graph to copy.
+        @param <V> Type of vertex element
+        @param <E> Type of edge element
+        @return The copy.
+    */
+    public static <V, E> CompactGraph<V, E> of(Graph<V, E> g) {
+        Map<Vertex<V>, Integer> ids = new HashMap<>();
+        List<V> vertices = new ArrayList<V>();
+        for (Vertex<V> v : g.vertices()) {
+            ids.put(v, vertices.size());
+            vertices.add(v.get());
+        }
+
+        IntList from = new IntList();
+        IntList to = new IntList();
+        List<E> edges = new ArrayList<E>();
+        for (Edge<E> e : g.edges()) {
+            from.add(ids.get(g.from(e)));
+            to.add(ids.get(g.to(e)));
+            edges.add(e.get());
+        }
+        return new CompactGraph<V, E>(vertices, from, to, edges);
+    }
+
+    @SuppressWarnings("unchecked") // We're typesafe because we use instanceof.
+    private int validateVertex(Vertex<V> v)
+        throws IllegalArgumentException {
+        if (v == null) {
+            throw new IllegalArgumentException("Inputted Vertex is null.");
+        } else if (!(v instanceof CompactGraph.CompactVertex)) {
+            throw new IllegalArgumentException("Inputted Vertex unusable "
+                + "by CompactGraph.");
+        }
+
+        CompactVertex validee = (CompactVertex) v;
+        if (!(validee.manufacturer() == this)) {
+            throw new IllegalArgumentException("Inputted Vertex does not "
+                + "belong to this CompactGraph.");
+        }
+        return validee.id;
+    }
+
+    @SuppressWarnings("unchecked") // We're typesafe because we use instanceof.
+    private int validateEdge(Edge<E> e)
+        throws IllegalArgumentException {
+        if (e == null) {
+            throw new IllegalArgumentException("Inputted Edge is null.");
+        } else if (!(e instanceof CompactGraph.CompactEdge)) {
+            throw new IllegalArgumentException("Inputted Edge unusable "
+                + "by CompactGraph.");
+        }
+
+        CompactEdge validee = (CompactEdge) e;
+        if (!(validee.manufacturer() == this)) {
+            throw new IllegalArgumentException("Inputted Edge does not "
+                + "belong to this CompactGraph.");
+        }
+        return validee.id;
+    }
+
+    /**
+        Vertex position for id.
+        @param id Vertex id, from 0 to order()-1.
+        @return The position; the same object for repeated calls.
+        @throws IllegalArgumentException If there is no such vertex.
+    */
+    public Vertex<V> vertex(int id) throws IllegalArgumentException {
+        if (id < 0 || id >= this.positions.length) {
+            throw new IllegalArgumentException("No vertex with id "
+                + id + ".");
+        }
+        CompactVertex p = this.positions[id];
+        if (p == null) {
+            p = new CompactVertex(id);
+            this.positions[id] = p;
+        }
+        return p;
+    }
+
+    /**
+        Id of vertex position.
+        @param v Vertex position to query.
+        @return Its id, from 0 to order()-1.
+        @throws IllegalArgumentException If vertex position
+            is invalid.
+    */
+    @Override
+    public int id(Vertex<V> v) throws IllegalArgumentException {
+        return this.validateVertex(v);
+    }
+
+    @Override
+    public int ids() {
+        return this.positions.length;
+    }
+
+    @Override
+    public int order() {
+        return this.positions.length;
+    }
+
+    @Override
+    public int begin(int v) {
+        return this.outOffsets[v];
+    }
+
+    @Override
+    public int end(int v) {
+        return this.outOffsets[v + 1];
+    }
+
+    @Override
+    public int target(int k) {
+        return this.outTargets[k];
+    }
+
+    @Override
+    public Vertex<V> insert(V v) {
+        throw new UnsupportedOperationException("CompactGraph is "
+            + "immutable.");
+    }
+
+    @Override
+    public Edge<E> insert(Vertex<V> from, Vertex<V> to, E e) {
+        throw new UnsupportedOperationException("CompactGraph is "
+            + "immutable.");
+    }
+
+    @Override
+    public V remove(Vertex<V> vertex) {
+        throw new UnsupportedOperationException("CompactGraph is "
+            + "immutable.");
+    }
+
+    @Override
+    public E remove(Edge<E> edge) {
+        throw new UnsupportedOperationException("CompactGraph is "
+            + "immutable.");
+    }
+
+    // Iterable over a run of ids, either directly (indices == null)
+    // or through an index array. The remove() method of its
+    // iterators is not supported, so it can't affect the graph.
+    private abstract class Run<T> implements Iterable<T> {
+        private final int[] indices;
+        private final int first;
+        private final int last;
+
+        Run(int[] i, int f, int l) {
+            this.indices = i;
+            this.first = f;
+            this.last = l;
+        }
+
+        abstract T make(int id);
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int cursor = Run.this.first;
+
+                @Override
+                public boolean hasNext() {
+                    return this.cursor < Run.this.last;
+                }
+
+                @Override
+                public T next() {
+                    if (!this.hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int k = this.cursor++;
+                    return Run.this.make(Run.this.indices == null
+                        ? k : Run.this.indices[k]);
+                }
+            };
+        }
+    }
+
+    private final class VertexRun extends Run<Vertex<V>> {
+        VertexRun(int f, int l) {
+            super(null, f, l);
+        }
+
+        @Override
+        Vertex<V> make(int id) {
+            return CompactGraph.this.vertex(id);
+        }
+    }
+
+    private final class EdgeRun extends Run<Edge<E>> {
+        EdgeRun(int[] i, int f, int l) {
+            super(i, f, l);
+        }
+
+        @Override
+        Edge<E> make(int id) {
+            return new CompactEdge(id);
+        }
+    }
+
+    @Override
+    public Iterable<Vertex<V>> vertices() {
+        return new VertexRun(0, this.order());
+    }
+
+    @Override
+    public Iterable<Edge<E>> edges() {
+        return new EdgeRun(null, 0, this.outTargets.length);
+    }
+
+    @Override
+    public Iterable<Edge<E>> outgoing(Vertex<V> vertex) {
+        int v = this.validateVertex(vertex);
+        return new EdgeRun(null, this.outOffsets[v], this.outOffsets[v + 1]);
+    }
+
+    @Override
+    public Iterable<Edge<E>> incoming(Vertex<V> vertex) {
+        int v = this.validateVertex(vertex);
+        return new EdgeRun(this.inEdges, this.inOffsets[v],
+            this.inOffsets[v + 1]);
+    }
+
+    // Walks a slice of the offset arrays. Vertex positions are
+    // cached, edge positions are made by edge() on demand.
+    private final class CompactCursor implements Cursor<V, E> {
+        private int[] indices;
+        private int next;
+        private int last;
+        private int current = -1;
+
+        @Override
+        public void outgoing(Vertex<V> vertex) {
+            int v = CompactGraph.this.validateVertex(vertex);
+            this.indices = null;
+            this.next = CompactGraph.this.outOffsets[v];
+            this.last = CompactGraph.this.outOffsets[v + 1];
+            this.current = -1;
+        }
+
+        @Override
+        public void incoming(Vertex<V> vertex) {
+            int v = CompactGraph.this.validateVertex(vertex);
+            this.indices = CompactGraph.this.inEdges;
+            this.next = CompactGraph.this.inOffsets[v];
+            this.last = CompactGraph.this.inOffsets[v + 1];
+            this.current = -1;
+        }
+
+        @Override
+        public boolean next() {
+            if (this.next == this.last) {
+                this.current = -1;
+                return false;
+            }
+            this.current = this.indices == null
+                ? this.next : this.indices[this.next];
+            this.next++;
+            return true;
+        }
+
+        @Override
+        public Edge<E> edge() {
+            if (this.current < 0) {
+                throw new NoSuchElementException("No current edge.");
+            }
+            return new CompactEdge(this.current);
+        }
+
+        @Override
+        public Vertex<V> other() {
+            if (this.current < 0) {
+                throw new NoSuchElementException("No current edge.");
+            }
+            return CompactGraph.this.vertex(this.indices == null
+                ? CompactGraph.this.outTargets[this.current]
+                : CompactGraph.this.sources[this.current]);
+        }
+    }
+
+    @Override
+    public Cursor<V, E> cursor() {
+        return new CompactCursor();
+    }
+
+    @Override
+    public Vertex<V> from(Edge<E> edge) {
+        int e = this.validateEdge(edge);
+        return this.vertex(this.sources[e]);
+    }
+
+    @Override
+    public Vertex<V> to(Edge<E> edge) {
+        int e = this.validateEdge(edge);
+        return this.vertex(this.outTargets[e]);
+    }
+
+    @Override
+    public void label(Vertex<V> vertex, Object l) {
+        int v = this.validateVertex(vertex);
+        if (l == null) {
+            throw new IllegalArgumentException("Can't label null.");
+        }
+        if (this.vertexLabels == null) {
+            this.vertexLabels = new Object[this.order()];
+        }
+        this.vertexLabels[v] = l;
+    }
+
+    @Override
+    public void label(Edge<E> edge, Object l) {
+        int e = this.validateEdge(edge);
+        if (l == null) {
+            throw new IllegalArgumentException("Can't label null.");
+        }
+        if (this.edgeLabels == null) {
+            this.edgeLabels = new Object[this.outTargets.length];
+        }
+        this.edgeLabels[e] = l;
+    }
+
+    @Override
+    public Object label(Vertex<V> vertex) {
+        int v = this.validateVertex(vertex);
+        return this.vertexLabels == null ? null : this.vertexLabels[v];
+    }
+
+    @Override
+    public Object label(Edge<E> edge) {
+        int e = this.validateEdge(edge);
+        return this.edgeLabels == null ? null : this.edgeLabels[e];
+    }
+
+    @Override
+    public void clearLabels() {
+        this.vertexLabels = null;
+        this.edgeLabels = null;
+    }
+}
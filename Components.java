@@ -0,0 +1,348 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+    Connected components of a graph, for O(1) reachability.
+
+    Two vertices are connected exactly when they are in the same
+    component, so a pair that isn't can be turned down before any
+    search starts; otherwise a search for it would have to go
+    through everything reachable from one of them first.
+
+    Components are found with a union-find over all edges, on all
+    cores: vertices are split into ranges, and the edges of every
+    range are merged into one shared forest at once. Roots are
+    linked with compare-and-set, always the larger vertex id under
+    the smaller, and finds halve their paths as they go, so no
+    locks are needed. The forest is then flattened into a
+    component number per vertex, numbered in order of the
+    smallest vertex id in each, with its size.
+
+    Edge directions are ignored, so for directed graphs these are
+    the weakly connected components.
+
+    Usage: java Components database
+    prints how many components a database has and how large they
+    are, for planning memory and indexes.
+*/
+public final class Components {
+    // Vertices per task.
+    private static final int GRAIN = 1 << 12;
+
+    // component of every vertex id, -1 for ids not in use
+    private final int[] component;
+    // vertices in every component
+    private final int[] sizes;
+
+    private Components(int[] c, int[] s) {
+        this.component = c;
+        this.sizes = s;
+    }
+
+    // Root of v's tree, halving the path on the way.
+    private static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) {
+                return v;
+            }
+            int q = parent.get(p);
+            if (q != p) {
+                parent.compareAndSet(v, p, q);
+            }
+            v = q;
+        }
+    }
+
+    // Merge the trees of a and b; safe to call from many threads.
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            a = find(parent, a);
+            b = find(parent, b);
+            if (a == b) {
+                return;
+            }
+            if (a < b) {
+                int t = a;
+                a = b;
+                b = t;
+            }
+            if (parent.compareAndSet(a, a, b)) {
+                return;
+            }
+        }
+    }
+
+    private static AtomicIntegerArray forest(int n) {
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            parent.set(v, v);
+        }
+        return parent;
+    }
+
+    // Component numbers from a finished forest; every root is the
+    // smallest vertex in its tree, so it's numbered before the
+    // rest.
+    private static Components flatten(AtomicIntegerArray parent,
+          boolean[] present) {
+        int n = parent.length();
+        int[] component = new int[n];
+        IntList sizes = new IntList();
+        for (int v = 0; v < n; v++) {
+            if (present != null && !present[v]) {
+                component[v] = -1;
+                continue;
+            }
+            int r = find(parent, v);
+            if (r == v) {
+                component[v] = sizes.size();
+                sizes.add(0);
+            } else {
+                component[v] = component[r];
+            }
+        }
+        int[] counts = new int[sizes.size()];
+        for (int v = 0; v < n; v++) {
+            if (component[v] >= 0) {
+                counts[component[v]]++;
+            }
+        }
+        return new Components(component, counts);
+    }
+
+    // Unions for the edges of vertices lo..hi-1 of an IntGraph.
+    private static final class Ranges extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntGraph graph;
+        private final AtomicIntegerArray parent;
+        private final int lo;
+        private final int hi;
+
+        Ranges(IntGraph g, AtomicIntegerArray p, int l, int h) {
+            this.graph = g;
+            this.parent = p;
+            this.lo = l;
+            this.hi = h;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo > GRAIN) {
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(new Ranges(this.graph, this.parent, this.lo, mid),
+                    new Ranges(this.graph, this.parent, mid, this.hi));
+                return;
+            }
+            for (int v = this.lo; v < this.hi; v++) {
+                for (int k = this.graph.begin(v); k < this.graph.end(v);
+                      k++) {
+                    union(this.parent, v, this.graph.target(k));
+                }
+            }
+        }
+    }
+
+    // Unions for the edges of some vertices of a Graph, each task
+    // with its own cursor.
+    private static final class Vertices<V, E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Graph<V, E> graph;
+        private final List<Vertex<V>> vertices;
+        private final AtomicIntegerArray parent;
+        private final int lo;
+        private final int hi;
+
+        Vertices(Graph<V, E> g, List<Vertex<V>> v, AtomicIntegerArray p,
+              int l, int h) {
+            this.graph = g;
+            this.vertices = v;
+            this.parent = p;
+            this.lo = l;
+            this.hi = h;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo > GRAIN) {
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(new Vertices<V, E>(this.graph, this.vertices,
+                    this.parent, this.lo, mid), new Vertices<V, E>(
+                    this.graph, this.vertices, this.parent, mid, this.hi));
+                return;
+            }
+            Cursor<V, E> c = this.graph.cursor();
+            for (int i = this.lo; i < this.hi; i++) {
+                Vertex<V> v = this.vertices.get(i);
+                c.outgoing(v);
+                while (c.next()) {
+                    union(this.parent, this.graph.id(v),
+                        this.graph.id(c.other()));
+                }
+            }
+        }
+    }
+
+    /**
+        Components of an IntGraph, on the common fork-join pool.
+        @param g Graph to split up.
+        @return Its components.
+    */
+    public static Components of(IntGraph g) {
+        return of(g, ForkJoinPool.commonPool());
+    }
+
+    /**
+        Components of an IntGraph, on a given fork-join pool.
+        @param g Graph to split up.
+        @param pool Pool to run on.
+        @return Its components.
+    */
+    public static Components of(IntGraph g, ForkJoinPool pool) {
+        AtomicIntegerArray parent = forest(g.order());
+        pool.invoke(new Ranges(g, parent, 0, g.order()));
+        return flatten(parent, null);
+    }
+
+    /**
+        Components of a Graph, by vertex id, on the common fork-join
+        pool. The graph must not change meanwhile.
+        @param <V> Vertex element type.
+        @param <E> Edge element type.
+        @param g Graph to split up.
+        @return Its components; ids not in use are in none.
+    */
+    public static <V, E> Components of(Graph<V, E> g) {
+        List<Vertex<V>> vertices = new ArrayList<Vertex<V>>();
+        boolean[] present = new boolean[g.ids()];
+        for (Vertex<V> v : g.vertices()) {
+            vertices.add(v);
+            present[g.id(v)] = true;
+        }
+        AtomicIntegerArray parent = forest(g.ids());
+        ForkJoinPool.commonPool().invoke(new Vertices<V, E>(g, vertices,
+            parent, 0, vertices.size()));
+        return flatten(parent, present);
+    }
+
+    /**
+        Component of a vertex.
+        @param v Vertex id.
+        @return Component number, from 0 to count()-1, or -1 if no
+            vertex has this id.
+    */
+    public int component(int v) {
+        return this.component[v];
+    }
+
+    /**
+        Whether there is a path between two vertices, ignoring
+        edge directions.
+        @param a Vertex id.
+        @param b Vertex id.
+        @return True if both are in the same component.
+    */
+    public boolean connected(int a, int b) {
+        return this.component[a] >= 0
+            && this.component[a] == this.component[b];
+    }
+
+    /**
+        Number of components.
+        @return The count; a vertex without edges is one by itself.
+    */
+    public int count() {
+        return this.sizes.length;
+    }
+
+    /**
+        Size of a component.
+        @param c Component number.
+        @return Number of vertices in it.
+    */
+    public int size(int c) {
+        return this.sizes[c];
+    }
+
+    /**
+        Largest component.
+        @return Its number, -1 if there are none.
+    */
+    public int largest() {
+        int best = -1;
+        for (int c = 0; c < this.sizes.length; c++) {
+            if (best < 0 || this.sizes[c] > this.sizes[best]) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    /**
+        How many components there are of each size, in powers of
+        two.
+        @return Entry i is the number of components with at least
+            2^i and fewer than 2^(i+1) vertices.
+    */
+    public long[] histogram() {
+        long[] histogram = new long[32];
+        int top = 0;
+        for (int s : this.sizes) {
+            int i = 31 - Integer.numberOfLeadingZeros(s);
+            histogram[i]++;
+            top = Math.max(top, i + 1);
+        }
+        long[] result = new long[top];
+        System.arraycopy(histogram, 0, result, 0, top);
+        return result;
+    }
+
+    /**
+        Print component statistics.
+        @param out Where to print them.
+    */
+    public void print(PrintStream out) {
+        int largest = this.largest();
+        long total = 0;
+        for (int s : this.sizes) {
+            total += s;
+        }
+        out.printf("%d vertices in %d components\n", total, this.count());
+        if (largest >= 0) {
+            out.printf("largest: %d vertices (%.1f%%)\n",
+                this.sizes[largest], 100.0 * this.sizes[largest] / total);
+        }
+        long[] histogram = this.histogram();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                out.printf("%10d - %-10d %d\n", 1L << i, (1L << i + 1) - 1,
+                    histogram[i]);
+            }
+        }
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.out.printf("Usage: java Components database\n");
+            System.exit(1);
+        }
+        Database db = Database.load(args[0]);
+        long t = System.nanoTime();
+        Components c = db.components();
+        System.err.printf("components in %.1f ms\n",
+            (System.nanoTime() - t) / 1e6);
+        c.print(System.out);
+    }
+}
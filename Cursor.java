@@ -0,0 +1,59 @@
+/**
+    Reusable walk over the edges of one vertex at a time.
+
+    Where outgoing() and incoming() hand out a fresh Iterable
+    (and usually a copy of the incidence list) on every call, a
+    cursor is made once with Graph.cursor() and then pointed at
+    one vertex after another, walking the graph's own incidence
+    lists in place. Nothing is allocated per vertex or per edge,
+    which is what the inner loop of a breadth-first search wants.
+
+    There is no remove(): walking can't change the graph. In turn
+    the graph shouldn't change during a walk; if it does, the
+    next call to next() throws ConcurrentModificationException
+    where the graph can tell.
+
+        Cursor<V, E> c = graph.cursor();
+        c.outgoing(v);
+        while (c.next()) {
+            ... c.edge() ... c.other() ...
+        }
+
+    @param <V> Type of vertex element
+    @param <E> Type of edge element
+*/
+public interface Cursor<V, E> {
+    /**
+        Start walking the outgoing edges of a vertex.
+        @param v Vertex position to explore.
+        @throws IllegalArgumentException If vertex position
+            is invalid.
+    */
+    void outgoing(Vertex<V> v)
+        throws IllegalArgumentException;
+    /**
+        Start walking the incoming edges of a vertex.
+        @param v Vertex position to explore.
+        @throws IllegalArgumentException If vertex position
+            is invalid.
+    */
+    void incoming(Vertex<V> v)
+        throws IllegalArgumentException;
+    /**
+        Move on to the next edge.
+        @return False if there are no more edges.
+    */
+    boolean next();
+    /**
+        Current edge.
+        @return Edge position next() moved to.
+    */
+    Edge<E> edge();
+    /**
+        Vertex across the current edge.
+        @return Vertex position the edge leads to when walking
+            outgoing edges, or comes from when walking incoming
+            edges.
+    */
+    Vertex<V> other();
+}
@@ -0,0 +1,255 @@
+import java.util.List;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+    Movie database loaded into a read-only graph.
+
+    Same bipartite graph of movies and actors that Kevin builds,
+    but as an IntGraph in which every credit links a movie and an
+    actor in both directions, together with a NameDictionary from
+    names to vertex ids and back. Vertex ids are handed out in
+    order of first appearance in the input file, so loading the
+    same file always gives the same ids.
+
+    Nothing changes a Database after loading, so any number of
+    threads can share one.
+*/
+public final class Database {
+    // Largest piece of a text file parse maps at once.
+    private static final int WINDOW = 1 << 30;
+
+    private final IntGraph graph;
+    private final NameDictionary names;
+    private final IntBuffer movies;
+    // found on first use, then kept
+    private Components components;
+
+    /**
+        New Database instance.
+        @param g Graph of movies and actors.
+        @param n Names of its vertices, vertex ids are name ids.
+        @param m One bit per vertex, set for movies.
+    */
+    Database(IntGraph g, NameDictionary n, IntBuffer m) {
+        this.graph = g;
+        this.names = n;
+        this.movies = m;
+    }
+
+    /**
+        New Database instance.
+        @param g Graph of movies and actors.
+        @param n Names of its vertices, vertex ids are name ids.
+        @param m Movies among them.
+    */
+    Database(IntGraph g, NameDictionary n, BitSet m) {
+        this(g, n, bits(m, n.size()));
+    }
+
+    // BitSet as ints, 32 vertices each, the way snapshots keep it.
+    private static IntBuffer bits(BitSet set, int n) {
+        int[] bits = new int[(n + 31) / 32];
+        for (int v = set.nextSetBit(0); v >= 0; v = set.nextSetBit(v + 1)) {
+            bits[v >>> 5] |= 1 << v;
+        }
+        return IntBuffer.wrap(bits);
+    }
+
+    /**
+        Load database file.
+
+        Opens snapshots written by Snapshot directly. For a text
+        file, a snapshot next to it (the same name plus ".snap")
+        is used instead as long as it isn't stale; otherwise the
+        text file is parsed. Gzipped text files and standard input
+        (for "-") are parsed as they are decompressed or read.
+
+        @param filename Name of database file or snapshot, or "-".
+        @return The database.
+        @throws FileNotFoundException If database file cannot be opened.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static Database load(String filename)
+        throws FileNotFoundException, IOException {
+        if (filename.equals("-")) {
+            return ParallelParser.parse(InputPipe.open(filename));
+        }
+        Path file = Paths.get(filename);
+        if (Snapshot.isSnapshot(file)) {
+            return Snapshot.open(file);
+        }
+        Path snap = Paths.get(filename + ".snap");
+        if (Files.exists(snap) && !Snapshot.isStale(snap, file)) {
+            return Snapshot.open(snap);
+        }
+        if (InputPipe.isGzip(file)) {
+            try (InputStream in = InputPipe.open(filename)) {
+                return ParallelParser.parse(in);
+            }
+        }
+        return ParallelParser.parse(file);
+    }
+
+    /**
+        Parse database text file.
+
+        There's one line for each movie, with the fields separated
+        by "/". The first field is the movie, the remaining fields
+        are actors. The file is read as UTF-8, and Tokenizer cuts
+        it into lines and fields.
+
+        This is the sequential parser; ParallelParser gives the
+        same result faster.
+
+        @param filename Name of database file.
+        @return The database.
+        @throws FileNotFoundException If database file cannot be opened.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static Database parse(String filename)
+        throws FileNotFoundException, IOException {
+        NameDictionary names = new NameDictionary();
+        BitSet isMovie = new BitSet();
+
+        // credits, as parallel lists of movie and actor
+        IntList movies = new IntList();
+        IntList actors = new IntList();
+
+        // map the file a window of whole lines at a time, windows
+        // can't be larger than 2GB
+        try (FileChannel c = FileChannel.open(Paths.get(filename))) {
+            long size = c.size();
+            long from = 0;
+            while (from < size) {
+                long to = Tokenizer.align(c, Math.min(from + WINDOW, size) - 1,
+                    size);
+                ByteBuffer b = c.map(FileChannel.MapMode.READ_ONLY, from,
+                    to - from);
+                Tokenizer.parse(b, 0, b.limit(), names, isMovie, movies,
+                    actors);
+                from = to;
+            }
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(filename);
+        }
+
+        return new Database(ArrayGraph.symmetric(names.size(), movies,
+            actors), names, isMovie);
+    }
+
+    /**
+        Graph of movies and actors.
+        @return The graph; every edge has a reverse edge.
+    */
+    public IntGraph graph() {
+        return this.graph;
+    }
+
+    /**
+        Number of movies and actors.
+        @return Vertex ids range from 0 to order()-1.
+    */
+    public int order() {
+        return this.graph.order();
+    }
+
+    /**
+        Vertex id of a movie or actor.
+        @param name Name as it appears in the database file.
+        @return Vertex id, or -1 if there is no such name.
+    */
+    public int id(String name) {
+        return this.names.id(name);
+    }
+
+    /**
+        Name of a movie or actor.
+        @param id Vertex id.
+        @return Name as it appears in the database file.
+    */
+    public String name(int id) {
+        return this.names.name(id);
+    }
+
+    /**
+        Movie or actor.
+        @param id Vertex id.
+        @return True if the vertex is a movie; an actor who shares
+            a name with a movie counts as a movie.
+    */
+    public boolean isMovie(int id) {
+        return (this.movies.get(id >>> 5) & (1 << id)) != 0;
+    }
+
+    /**
+        Connected components of the graph.
+
+        Found on all cores the first time they are asked for, then
+        kept; databases that never need them don't pay for them.
+
+        @return The components.
+    */
+    public synchronized Components components() {
+        if (this.components == null) {
+            this.components = Components.of(this.graph);
+        }
+        return this.components;
+    }
+
+    /**
+        Names of movies and actors.
+        @return Dictionary whose ids are the vertex ids.
+    */
+    NameDictionary names() {
+        return this.names;
+    }
+
+    /**
+        Movie bits.
+        @return One bit per vertex, set for movies, 32 to an int.
+    */
+    IntBuffer movies() {
+        return this.movies.asReadOnlyBuffer();
+    }
+
+    /**
+        Copy into a CompactGraph.
+
+        Vertex ids carry over, and every credit turns into a
+        "features" edge from movie to actor and an "acts in" edge
+        back, just like Kevin's SparseGraph.
+
+        @return The copy.
+    */
+    public CompactGraph<String, String> toGraph() {
+        int n = this.order();
+        List<String> vertices = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            vertices.add(this.name(v));
+        }
+
+        IntList from = new IntList();
+        IntList to = new IntList();
+        List<String> kinds = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            String kind = this.isMovie(v) ? "features" : "acts in";
+            for (int k = this.graph.begin(v); k < this.graph.end(v); k++) {
+                from.add(v);
+                to.add(this.graph.target(k));
+                kinds.add(kind);
+            }
+        }
+        return new CompactGraph<String, String>(vertices, from, to, kinds);
+    }
+}
@@ -0,0 +1,250 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+    GraphViz output for graphs of any size.
+
+    Writes DOT straight to an Appendable (any Writer, a PrintStream
+    like System.out, or a StringBuilder) as it goes, so the time
+    taken is linear in what is written and nothing is built up in
+    memory first. Edges are walked with a Cursor, vertex by vertex;
+    an edge is written at the vertex it comes from, so it shows up
+    once even in graphs like BipartiteGraph where it is in the
+    incidence lists of both its ends.
+
+    Besides the whole graph, two kinds of subgraph can be written:
+    everything within k hops of a vertex, and a path together with
+    everything adjacent to every other vertex on it, which for a
+    path between actors are the movies they were in. Only those
+    vertices are visited.
+
+    Usage: java DotWriter database actor [hops]
+    writes the neighborhood of an actor (2 hops, the actor's movies
+    and co-stars, by default) to standard output; render it with,
+    say, 'java DotWriter all06.txt "Bacon, Kevin" | dot -Tsvg'.
+*/
+public final class DotWriter {
+    // Shut up checkstyle.
+    private DotWriter() {}
+
+    // Vertex name as a DOT string.
+    private static void quote(Appendable out, Object o) throws IOException {
+        String s = o.toString();
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private static <V> void vertex(Appendable out, Vertex<V> v,
+          String attributes) throws IOException {
+        out.append("  ");
+        quote(out, v.get());
+        if (attributes != null) {
+            out.append(" [").append(attributes).append(']');
+        }
+        out.append(";\n");
+    }
+
+    private static <V, E> void edge(Appendable out, Graph<V, E> g,
+          Edge<E> e, String attributes) throws IOException {
+        out.append("  ");
+        quote(out, g.from(e).get());
+        out.append(" -> ");
+        quote(out, g.to(e).get());
+        out.append(" [label=");
+        quote(out, e.get());
+        if (attributes != null) {
+            out.append(", ").append(attributes);
+        }
+        out.append("];\n");
+    }
+
+    /**
+        Write a whole graph.
+        @param <V> Vertex element type.
+        @param <E> Edge element type.
+        @param g Graph to write.
+        @param out Where to write it.
+        @throws IOException If out can't be written.
+    */
+    public static <V, E> void write(Graph<V, E> g, Appendable out)
+        throws IOException {
+        out.append("digraph {\n");
+        for (Vertex<V> v : g.vertices()) {
+            vertex(out, v, null);
+        }
+        Cursor<V, E> c = g.cursor();
+        for (Vertex<V> v : g.vertices()) {
+            c.outgoing(v);
+            while (c.next()) {
+                Edge<E> e = c.edge();
+                if (g.from(e) == v) {
+                    edge(out, g, e, null);
+                }
+            }
+        }
+        out.append("}\n");
+    }
+
+    /**
+        Write all vertices within some hops of a vertex, following
+        outgoing edges, and the edges between them.
+        @param <V> Vertex element type.
+        @param <E> Edge element type.
+        @param g Graph to write.
+        @param center Vertex to start from, shown in bold.
+        @param hops Largest number of edges from center.
+        @param out Where to write it.
+        @throws IOException If out can't be written.
+        @throws IllegalArgumentException If hops is negative.
+    */
+    public static <V, E> void neighborhood(Graph<V, E> g, Vertex<V> center,
+          int hops, Appendable out)
+        throws IOException, IllegalArgumentException {
+        if (hops < 0) {
+            throw new IllegalArgumentException("Negative hops.");
+        }
+        // distance of every vertex reached, by id, and the vertices
+        // in the order reached; the list is the queue of the search
+        // as well. A map, since the output is only a small part of
+        // the graph.
+        Map<Integer, Integer> distance = new HashMap<Integer, Integer>();
+        List<Vertex<V>> reached = new ArrayList<Vertex<V>>();
+        Cursor<V, E> c = g.cursor();
+        distance.put(g.id(center), 0);
+        reached.add(center);
+        for (int head = 0; head < reached.size(); head++) {
+            Vertex<V> v = reached.get(head);
+            int d = distance.get(g.id(v));
+            if (d == hops) {
+                continue;
+            }
+            c.outgoing(v);
+            while (c.next()) {
+                Vertex<V> w = c.other();
+                if (!distance.containsKey(g.id(w))) {
+                    distance.put(g.id(w), d + 1);
+                    reached.add(w);
+                }
+            }
+        }
+
+        out.append("digraph {\n");
+        for (Vertex<V> v : reached) {
+            vertex(out, v, v == center ? "style=bold" : null);
+        }
+        for (Vertex<V> v : reached) {
+            c.outgoing(v);
+            while (c.next()) {
+                Edge<E> e = c.edge();
+                if (g.from(e) == v && distance.containsKey(g.id(c.other()))) {
+                    edge(out, g, e, null);
+                }
+            }
+        }
+        out.append("}\n");
+    }
+
+    // Whether positions i and j are next to each other on a path.
+    private static boolean along(int i, int j) {
+        return j >= 0 && Math.abs(j - i) == 1;
+    }
+
+    /**
+        Write a path with everything adjacent to its first, third,
+        fifth (and so on) vertex. The path is shown in bold.
+        @param <V> Vertex element type.
+        @param <E> Edge element type.
+        @param g Graph to write.
+        @param path Vertices along the path.
+        @param out Where to write it.
+        @throws IOException If out can't be written.
+    */
+    public static <V, E> void path(Graph<V, E> g, List<Vertex<V>> path,
+          Appendable out) throws IOException {
+        // position on the path by id, or -1 for a vertex next to it
+        Map<Integer, Integer> position = new HashMap<Integer, Integer>();
+        for (int i = 0; i < path.size(); i++) {
+            position.put(g.id(path.get(i)), i);
+        }
+
+        out.append("digraph {\n");
+        for (Vertex<V> v : path) {
+            vertex(out, v, "style=bold");
+        }
+        Cursor<V, E> c = g.cursor();
+        for (int i = 0; i < path.size(); i += 2) {
+            c.outgoing(path.get(i));
+            while (c.next()) {
+                Vertex<V> w = c.other();
+                if (!position.containsKey(g.id(w))) {
+                    position.put(g.id(w), -1);
+                    vertex(out, w, null);
+                }
+            }
+        }
+
+        // every edge touching one of every other vertex, written
+        // where it comes from if that's one of them, else where it
+        // goes to
+        for (int i = 0; i < path.size(); i += 2) {
+            Vertex<V> v = path.get(i);
+            c.outgoing(v);
+            while (c.next()) {
+                Edge<E> e = c.edge();
+                if (g.from(e) == v) {
+                    int j = position.getOrDefault(g.id(c.other()), -1);
+                    edge(out, g, e, along(i, j) ? "style=bold" : null);
+                }
+            }
+            c.incoming(v);
+            while (c.next()) {
+                Edge<E> e = c.edge();
+                int j = position.getOrDefault(g.id(c.other()), -1);
+                if (g.to(e) == v && (j < 0 || j % 2 == 1)) {
+                    edge(out, g, e, along(i, j) ? "style=bold" : null);
+                }
+            }
+        }
+        out.append("}\n");
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 3) {
+            System.out.printf("Usage: java DotWriter database actor "
+                + "[hops]\n");
+            System.exit(1);
+        }
+        int hops = args.length == 3 ? Integer.parseInt(args[2]) : 2;
+
+        Database db = Database.load(args[0]);
+        int v = db.id(args[1]);
+        if (v < 0) {
+            System.out.printf("Error: Can't find %s in database.\n", args[1]);
+            System.exit(1);
+        }
+        CompactGraph<String, String> g = db.toGraph();
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out,
+            StandardCharsets.UTF_8));
+        neighborhood(g, g.vertex(v), hops, out);
+        out.flush();
+    }
+}
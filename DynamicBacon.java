@@ -0,0 +1,533 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+    Bacon numbers that stay up to date as movies come and go.
+
+    Holds a SparseGraph of movies and actors the way Kevin builds
+    it, and the distance of every vertex from Bacon along with the
+    vertex it is reached from, like a BaconIndex. Changes are movie
+    lines in the database format with a sign in front:
+
+        +movie/actor/actor   add the movie if new, and these
+                             actors to it
+        -movie/actor/actor   take these actors out of the movie
+        -movie               remove the movie altogether
+
+    Actors left without movies are removed too, so the graph ends
+    up the same as reading a database with the changes made to it.
+    Every change goes through Graph.insert and Graph.remove, and
+    distances are repaired on the spot rather than searched again
+    from Bacon:
+
+    Adding a credit can only shorten distances. Whichever end of
+    it got closer is searched from, and the search only goes on
+    through vertices that got closer as well.
+
+    Removing a credit matters only if it was the link a vertex was
+    reached through. That vertex keeps its distance if some other
+    neighbor is one step closer to Bacon, which is the common case.
+    Otherwise everything reached through it (its subtree) has lost
+    its way to Bacon: each of those vertices looks for its nearest
+    neighbor outside the subtree, and a search from the nearest
+    ones settles the subtree in order of distance. Nothing outside
+    the subtree is touched.
+
+    So the work of an update is proportional to the part of the
+    graph whose distances change, which touched() keeps count of.
+
+    Usage: java DynamicBacon database actor [changes...]
+    applies each file of changes in turn, reports how long that
+    took and how long checking it with a search from scratch took,
+    and prints the path from actor to Bacon at the end.
+*/
+public final class DynamicBacon {
+    private static final String BACON = "Bacon, Kevin";
+
+    // value of mark for vertices of the subtree being repaired,
+    // and for those among them that are settled
+    private static final int STALE = 1;
+    private static final int SETTLED = 2;
+
+    private final SparseGraph<String, String> graph;
+    private final Map<String, Vertex<String>> vertices;
+    private Vertex<String> root;
+
+    // by vertex id: the vertex, its distance from Bacon and the id
+    // it is reached from, -1 where there is no path
+    private final List<Vertex<String>> byId;
+    private int[] distance;
+    private int[] parent;
+
+    // subtree being repaired
+    private final IntLabels mark;
+    private final IntList queue;
+
+    // whether distances are kept up to date while changing
+    private boolean live;
+    private long touched;
+
+    /** New DynamicBacon instance, with no movies at all. */
+    public DynamicBacon() {
+        this.graph = new SparseGraph<String, String>();
+        this.vertices = new HashMap<String, Vertex<String>>();
+        this.byId = new ArrayList<Vertex<String>>();
+        this.distance = new int[16];
+        this.parent = new int[16];
+        this.mark = new IntLabels(16);
+        this.queue = new IntList();
+        this.live = true;
+    }
+
+    /**
+        Add every movie of a database, then search from Bacon once.
+        @param filename Database to read, gzipped or not; "-" reads
+            standard input.
+        @throws IOException If the file can't be read.
+    */
+    public void load(String filename) throws IOException {
+        this.live = false;
+        try (BufferedReader reader = open(filename)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                this.add(line.split("/"));
+            }
+        } finally {
+            this.live = true;
+            this.rebuild();
+        }
+    }
+
+    /**
+        Apply every change in a file.
+        @param filename File of changes, one per line; read like a
+            database.
+        @throws IOException If the file can't be read.
+        @throws IllegalArgumentException If a line has no sign.
+    */
+    public void applyAll(String filename)
+        throws IOException, IllegalArgumentException {
+        try (BufferedReader reader = open(filename)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    this.apply(line);
+                }
+            }
+        }
+    }
+
+    /**
+        Apply one change.
+        @param change Movie line with '+' or '-' in front.
+        @throws IllegalArgumentException If there's no sign.
+    */
+    public void apply(String change) throws IllegalArgumentException {
+        if (change.length() < 2
+              || change.charAt(0) != '+' && change.charAt(0) != '-') {
+            throw new IllegalArgumentException("Change must start with "
+                + "+ or -.");
+        }
+        String[] data = change.substring(1).split("/");
+        if (change.charAt(0) == '+') {
+            this.add(data);
+        } else {
+            this.remove(data);
+        }
+    }
+
+    /**
+        Distance from Bacon.
+        @param name Movie or actor.
+        @return Number of edges on a shortest path to Bacon, -1 if
+            there is none or no such movie or actor.
+    */
+    public int distance(String name) {
+        Vertex<String> v = this.vertices.get(name);
+        return v == null ? -1 : this.distance[this.graph.id(v)];
+    }
+
+    /**
+        Shortest path to Bacon.
+        @param name Movie or actor.
+        @return Names along the path, ending with Bacon, or null if
+            there is none.
+    */
+    public List<String> path(String name) {
+        if (this.distance(name) < 0) {
+            return null;
+        }
+        List<String> path = new ArrayList<String>();
+        for (int v = this.graph.id(this.vertices.get(name)); v >= 0;
+              v = this.parent[v]) {
+            path.add(this.byId.get(v).get());
+        }
+        return path;
+    }
+
+    /**
+        Amount of repair work so far.
+        @return Number of vertices whose distance was looked at
+            again by updates since this instance was made.
+    */
+    public long touched() {
+        return this.touched;
+    }
+
+    /**
+        The graph; changing it other than through apply() leaves
+        the distances wrong.
+        @return The graph.
+    */
+    public Graph<String, String> graph() {
+        return this.graph;
+    }
+
+    /**
+        Check distances against a search from scratch, and that
+        every parent is a neighbor one step closer to Bacon.
+        @return True if all is well.
+    */
+    public boolean consistent() {
+        int[] d = this.distance.clone();
+        int[] p = this.parent.clone();
+        this.rebuild();
+        boolean ok = true;
+        for (Vertex<String> v : this.graph.vertices()) {
+            int i = this.graph.id(v);
+            ok &= d[i] == this.distance[i];
+            if (p[i] >= 0) {
+                Vertex<String> u = this.byId.get(p[i]);
+                ok &= u != null && d[p[i]] == d[i] - 1
+                    && this.graph.edge(u, v) != null;
+            } else {
+                ok &= d[i] <= 0;
+            }
+        }
+        this.distance = d;
+        this.parent = p;
+        return ok;
+    }
+
+    // Files the way Kevin reads them: UTF-8, through an InputPipe.
+    private static BufferedReader open(String filename) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+            InputPipe.open(filename), StandardCharsets.UTF_8));
+    }
+
+    private Vertex<String> vertex(String name) {
+        Vertex<String> v = this.vertices.get(name);
+        if (v == null) {
+            v = this.graph.insert(name);
+            this.vertices.put(name, v);
+            int id = this.graph.id(v);
+            if (id >= this.distance.length) {
+                int n = Math.max(2 * this.distance.length, id + 1);
+                this.distance = Arrays.copyOf(this.distance, n);
+                this.parent = Arrays.copyOf(this.parent, n);
+            }
+            while (this.byId.size() <= id) {
+                this.byId.add(null);
+            }
+            this.byId.set(id, v);
+            this.distance[id] = -1;
+            this.parent[id] = -1;
+            if (name.equals(BACON)) {
+                this.root = v;
+                this.distance[id] = 0;
+            }
+        }
+        return v;
+    }
+
+    // Remove an actor that is in no movie anymore.
+    private void dropIfAlone(Vertex<String> v) {
+        Cursor<String, String> c = this.graph.cursor();
+        c.outgoing(v);
+        if (c.next()) {
+            return;
+        }
+        c.incoming(v);
+        if (c.next()) {
+            return;
+        }
+        int id = this.graph.id(v);
+        this.byId.set(id, null);
+        this.distance[id] = -1;
+        this.parent[id] = -1;
+        this.vertices.remove(v.get());
+        this.graph.remove(v);
+        if (v == this.root) {
+            // all that was left of Bacon, nobody has a distance
+            this.root = null;
+            this.rebuild();
+        }
+    }
+
+    private void add(String[] data) {
+        Vertex<String> m = this.vertex(data[0]);
+        for (int i = 1; i < data.length; i++) {
+            Vertex<String> a = this.vertex(data[i]);
+            if (a == m || this.graph.edge(m, a) != null) {
+                continue; // credited twice
+            }
+            this.graph.insert(m, a, "features");
+            this.graph.insert(a, m, "acts in");
+            if (this.live) {
+                this.shorten(m, a);
+                this.shorten(a, m);
+            }
+        }
+    }
+
+    private void remove(String[] data) {
+        Vertex<String> m = this.vertices.get(data[0]);
+        if (m == null) {
+            return;
+        }
+        List<Vertex<String>> actors = new ArrayList<Vertex<String>>();
+        if (data.length == 1) {
+            Cursor<String, String> c = this.graph.cursor();
+            c.outgoing(m);
+            while (c.next()) {
+                actors.add(c.other());
+            }
+        } else {
+            for (int i = 1; i < data.length; i++) {
+                Vertex<String> a = this.vertices.get(data[i]);
+                if (a != null && a != m) {
+                    actors.add(a);
+                }
+            }
+        }
+
+        for (Vertex<String> a : actors) {
+            Edge<String> features = this.graph.edge(m, a);
+            Edge<String> actsIn = this.graph.edge(a, m);
+            if (features != null) {
+                this.graph.remove(features);
+            }
+            if (actsIn != null) {
+                this.graph.remove(actsIn);
+            }
+            if (features != null || actsIn != null) {
+                this.cut(m, a);
+                this.dropIfAlone(a);
+            }
+        }
+        if (data.length == 1) {
+            this.dropIfAlone(m);
+        }
+    }
+
+    // Distances from scratch.
+    private void rebuild() {
+        Arrays.fill(this.distance, -1);
+        Arrays.fill(this.parent, -1);
+        if (this.root == null) {
+            return;
+        }
+        int r = this.graph.id(this.root);
+        this.distance[r] = 0;
+        this.queue.clear();
+        this.queue.add(r);
+        Cursor<String, String> c = this.graph.cursor();
+        for (int head = 0; head < this.queue.size(); head++) {
+            int v = this.queue.get(head);
+            c.outgoing(this.byId.get(v));
+            while (c.next()) {
+                int w = this.graph.id(c.other());
+                if (this.distance[w] < 0) {
+                    this.distance[w] = this.distance[v] + 1;
+                    this.parent[w] = v;
+                    this.queue.add(w);
+                }
+            }
+        }
+    }
+
+    // A new edge from u to v: if that brings v closer, search on
+    // from v through everything else it brings closer.
+    private void shorten(Vertex<String> u, Vertex<String> v) {
+        int from = this.graph.id(u);
+        int to = this.graph.id(v);
+        int d = this.distance[from];
+        if (d < 0 || this.distance[to] >= 0 && this.distance[to] <= d + 1) {
+            return;
+        }
+        this.distance[to] = d + 1;
+        this.parent[to] = from;
+        this.queue.clear();
+        this.queue.add(to);
+        Cursor<String, String> c = this.graph.cursor();
+        for (int head = 0; head < this.queue.size(); head++) {
+            int x = this.queue.get(head);
+            this.touched++;
+            c.outgoing(this.byId.get(x));
+            while (c.next()) {
+                int y = this.graph.id(c.other());
+                if (this.distance[y] < 0
+                      || this.distance[y] > this.distance[x] + 1) {
+                    this.distance[y] = this.distance[x] + 1;
+                    this.parent[y] = x;
+                    this.queue.add(y);
+                }
+            }
+        }
+    }
+
+    // The credit between u and v is gone; if one of them was
+    // reached through the other, repair its subtree.
+    private void cut(Vertex<String> u, Vertex<String> v) {
+        int a = this.graph.id(u);
+        int b = this.graph.id(v);
+        if (this.parent[b] == a) {
+            this.repair(b);
+        } else if (this.parent[a] == b) {
+            this.repair(a);
+        }
+    }
+
+    // Vertex w lost the link it was reached through.
+    private void repair(int w) {
+        Cursor<String, String> c = this.graph.cursor();
+        this.touched++;
+
+        // another way in at the same distance leaves all as it was
+        c.outgoing(this.byId.get(w));
+        while (c.next()) {
+            int y = this.graph.id(c.other());
+            if (this.distance[y] >= 0
+                  && this.distance[y] == this.distance[w] - 1) {
+                this.parent[w] = y;
+                return;
+            }
+        }
+
+        // everything reached through w
+        this.mark.clear();
+        this.queue.clear();
+        this.queue.add(w);
+        this.mark.set(w, STALE);
+        for (int head = 0; head < this.queue.size(); head++) {
+            int x = this.queue.get(head);
+            c.outgoing(this.byId.get(x));
+            while (c.next()) {
+                int y = this.graph.id(c.other());
+                if (this.parent[y] == x && !this.mark.has(y)) {
+                    this.mark.set(y, STALE);
+                    this.queue.add(y);
+                }
+            }
+        }
+        int size = this.queue.size();
+        this.touched += size - 1;
+
+        // best way in from outside for each, sorted by distance
+        long[] seeds = new long[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int x = this.queue.get(i);
+            this.distance[x] = -1;
+            this.parent[x] = -1;
+            c.outgoing(this.byId.get(x));
+            while (c.next()) {
+                int y = this.graph.id(c.other());
+                int d = this.distance[y];
+                if (!this.mark.has(y) && d >= 0
+                      && (this.distance[x] < 0 || d + 1 < this.distance[x])) {
+                    this.distance[x] = d + 1;
+                    this.parent[x] = y;
+                }
+            }
+            if (this.distance[x] >= 0) {
+                seeds[n++] = (long) this.distance[x] << 32 | x;
+            }
+        }
+        Arrays.sort(seeds, 0, n);
+
+        // search the subtree from those, merging seeds and queue so
+        // vertices are settled in order of distance
+        this.queue.clear();
+        int s = 0;
+        int head = 0;
+        while (s < n || head < this.queue.size()) {
+            int x;
+            if (head == this.queue.size() || s < n
+                  && (int) (seeds[s] >>> 32)
+                  <= this.distance[this.queue.get(head)]) {
+                x = (int) seeds[s++];
+            } else {
+                x = this.queue.get(head++);
+            }
+            if (this.mark.get(x) == SETTLED) {
+                continue;
+            }
+            this.mark.set(x, SETTLED);
+            c.outgoing(this.byId.get(x));
+            while (c.next()) {
+                int y = this.graph.id(c.other());
+                if (this.mark.get(y) == STALE && (this.distance[y] < 0
+                      || this.distance[y] > this.distance[x] + 1)) {
+                    this.distance[y] = this.distance[x] + 1;
+                    this.parent[y] = x;
+                    this.queue.add(y);
+                }
+            }
+        }
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If a file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.printf("Usage: java DynamicBacon database actor "
+                + "[changes...]\n");
+            System.exit(1);
+        }
+
+        DynamicBacon bacon = new DynamicBacon();
+        long t = System.nanoTime();
+        bacon.load(args[0]);
+        System.err.printf("%s: %.1f ms\n", args[0],
+            (System.nanoTime() - t) / 1e6);
+
+        for (int i = 2; i < args.length; i++) {
+            long before = bacon.touched();
+            t = System.nanoTime();
+            bacon.applyAll(args[i]);
+            double update = (System.nanoTime() - t) / 1e6;
+            t = System.nanoTime();
+            boolean ok = bacon.consistent();
+            double scratch = (System.nanoTime() - t) / 1e6;
+            System.err.printf("%s: %.1f ms, %d vertices touched; "
+                + "checking from scratch %.1f ms\n", args[i], update,
+                bacon.touched() - before, scratch);
+            if (!ok) {
+                System.out.printf("Error: Distances are off after %s.\n",
+                    args[i]);
+                System.exit(1);
+            }
+        }
+
+        List<String> path = bacon.path(args[1]);
+        if (path == null) {
+            System.out.printf("Error: Can't connect %s to Bacon, Kevin.\n",
+                args[1]);
+            System.exit(1);
+        }
+        for (String name : path) {
+            System.out.println(name);
+        }
+    }
+}
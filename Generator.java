@@ -0,0 +1,256 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+    Synthetic movie databases of any size, for scale testing.
+
+    Writes movies in the same "movie/actor/actor" format as the
+    IMDB files. Like in those, most movies have small casts and a
+    few have huge ones, and most actors are in one or two movies
+    while a few are in hundreds: cast sizes and the actors in them
+    are drawn from power laws, P(k) proportional to k^-s, so the
+    graph has the same busy hubs and long tail as the real thing.
+    Both are sampled by inverting the continuous distribution, in
+    constant time and memory, and movies are written as they are
+    made, so a database a hundred times the size of all06.txt takes
+    no more memory than a small one.
+
+    "Bacon, Kevin" is one of the busier actors, but not the
+    busiest. Targets can be planted at known Bacon numbers: each
+    hangs off Bacon on a chain of movies of two, through actors
+    that are in nothing else, so its Bacon number is exactly the
+    length of the chain however the rest came out. A target can
+    also be planted with no connection to Bacon at all. That gives
+    benchmarks and tests ground truth at any scale.
+
+    The same parameters and seed always give the same file.
+
+    Usage: java Generator [--seed n] [--actors n] [--cast s]
+                          [--popularity s] [--target name=d]...
+                          movies [file]
+    writes a database of that many movies to a file (gzipped if
+    its name ends in ".gz") or to standard output; d is a Bacon
+    number, or -1 for an actor who can't be connected.
+*/
+public final class Generator {
+    private static final String BACON = "Bacon, Kevin";
+    // Popularity rank of Bacon among the actors, 0 the busiest.
+    private static final int BACON_RANK = 10;
+    // Largest cast.
+    private static final int MAX_CAST = 250;
+    // Draws per cast member before settling for a smaller cast; with
+    // a steep popularity nearly every draw is the same few actors.
+    private static final int DRAWS = 4;
+
+    private final int movies;
+    private final int actors;
+    private final double cast;
+    private final double popularity;
+    private final long seed;
+    // planted targets and their Bacon numbers
+    private final Map<String, Integer> targets;
+
+    /**
+        New Generator instance.
+        @param m Number of movies, not counting planted ones.
+        @param a Number of actors to draw casts from; some may end
+            up in no movie at all.
+        @param c Exponent of the cast size distribution.
+        @param p Exponent of the actor popularity distribution.
+        @param s Seed for the random numbers.
+        @throws IllegalArgumentException If a count is too small or
+            an exponent is negative or not finite.
+    */
+    public Generator(int m, int a, double c, double p, long s)
+        throws IllegalArgumentException {
+        if (m < 0 || a <= BACON_RANK) {
+            throw new IllegalArgumentException("Too few movies or actors.");
+        }
+        if (!(c >= 0) || !(p >= 0) || Double.isInfinite(c)
+              || Double.isInfinite(p)) {
+            throw new IllegalArgumentException("Invalid exponent.");
+        }
+        this.movies = m;
+        this.actors = a;
+        this.cast = c;
+        this.popularity = p;
+        this.seed = s;
+        this.targets = new LinkedHashMap<String, Integer>();
+    }
+
+    /**
+        Plant an actor at a known Bacon number.
+        @param name Name of the actor.
+        @param distance Bacon number, at least 1, or -1 for an
+            actor who can't be connected to Bacon.
+        @throws IllegalArgumentException If the name is taken or
+            can't be written, or the distance is invalid.
+    */
+    public void plant(String name, int distance)
+        throws IllegalArgumentException {
+        if (distance < 1 && distance != -1) {
+            throw new IllegalArgumentException("Invalid distance.");
+        }
+        if (name.isEmpty() || name.contains("/") || name.contains("\n")
+              || name.contains("\r")) {
+            throw new IllegalArgumentException("Invalid name.");
+        }
+        if (name.equals(BACON) || name.startsWith("Actor ")
+              || name.startsWith("Movie ") || name.startsWith("Link ")
+              || name.startsWith("Path ") || this.targets.containsKey(name)) {
+            throw new IllegalArgumentException("Name taken.");
+        }
+        this.targets.put(name, distance);
+    }
+
+    /**
+        Planted targets.
+        @return Names and Bacon numbers, in order of planting.
+    */
+    public Map<String, Integer> targets() {
+        return new LinkedHashMap<String, Integer>(this.targets);
+    }
+
+    // Power law on 1..n by inverting its continuous version.
+    private static int draw(Random random, int n, double s) {
+        double u = random.nextDouble();
+        double k;
+        if (Math.abs(s - 1) < 1e-9) {
+            k = Math.exp(u * Math.log(n + 1.0));
+        } else {
+            double a = 1 - s;
+            k = Math.pow((Math.pow(n + 1.0, a) - 1) * u + 1, 1 / a);
+        }
+        return Math.max(1, Math.min(n, (int) k));
+    }
+
+    private String actor(int rank) {
+        return rank == BACON_RANK ? BACON : "Actor " + rank;
+    }
+
+    /**
+        Write the database.
+        @param out Where to write it.
+        @throws IOException If out can't be written.
+    */
+    public void write(Writer out) throws IOException {
+        Random random = new Random(this.seed);
+        int largest = Math.min(MAX_CAST, this.actors);
+        Set<String> members = new LinkedHashSet<String>();
+        for (int m = 0; m < this.movies; m++) {
+            int size = draw(random, largest, this.cast);
+            members.clear();
+            for (int i = 0; i < DRAWS * size && members.size() < size; i++) {
+                members.add(this.actor(draw(random, this.actors,
+                    this.popularity) - 1));
+            }
+            out.write("Movie " + m);
+            for (String a : members) {
+                out.write('/');
+                out.write(a);
+            }
+            out.write('\n');
+        }
+
+        // chains to the targets: Path j.i links Link j.(i-1) and
+        // Link j.i, Link j.0 being Bacon and the last one the target
+        int j = 0;
+        for (Map.Entry<String, Integer> t : this.targets.entrySet()) {
+            int d = t.getValue();
+            if (d < 0) {
+                out.write("Path " + j + ".0/" + t.getKey() + "\n");
+            }
+            String previous = BACON;
+            for (int i = 1; i <= d; i++) {
+                String next = i == d ? t.getKey() : "Link " + j + "." + i;
+                out.write("Path " + j + "." + i + "/" + previous + "/" + next
+                    + "\n");
+                previous = next;
+            }
+            j++;
+        }
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If the file can't be written.
+    */
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        int actors = -1;
+        double cast = 1.5;
+        double popularity = 1.0;
+        List<String> planted = new ArrayList<String>();
+        int o = 0;
+        while (o + 1 < args.length && args[o].startsWith("--")) {
+            if (args[o].equals("--seed")) {
+                seed = Long.parseLong(args[++o]);
+            } else if (args[o].equals("--actors")) {
+                actors = Integer.parseInt(args[++o]);
+            } else if (args[o].equals("--cast")) {
+                cast = Double.parseDouble(args[++o]);
+            } else if (args[o].equals("--popularity")) {
+                popularity = Double.parseDouble(args[++o]);
+            } else if (args[o].equals("--target")) {
+                planted.add(args[++o]);
+            } else {
+                System.out.printf("Error: Unknown option %s.\n", args[o]);
+                System.exit(1);
+            }
+            o++;
+        }
+        if (args.length - o != 1 && args.length - o != 2) {
+            System.out.printf("Usage: java Generator [--seed n] "
+                + "[--actors n] [--cast s] [--popularity s] "
+                + "[--target name=d]... movies [file]\n");
+            System.exit(1);
+        }
+
+        int movies = Integer.parseInt(args[o]);
+        Generator g = null;
+        try {
+            g = new Generator(movies, actors < 0
+                ? Math.max(3 * movies, BACON_RANK + 1) : actors, cast,
+                popularity, seed);
+            for (String t : planted) {
+                int eq = t.lastIndexOf('=');
+                if (eq < 0) {
+                    throw new IllegalArgumentException("Target needs "
+                        + "name=distance.");
+                }
+                g.plant(t.substring(0, eq),
+                    Integer.parseInt(t.substring(eq + 1)));
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.printf("Error: %s\n", e.getMessage());
+            System.exit(1);
+        }
+
+        OutputStream stream = System.out;
+        if (args.length - o == 2) {
+            stream = Files.newOutputStream(Paths.get(args[o + 1]));
+            if (args[o + 1].endsWith(".gz")) {
+                stream = new GZIPOutputStream(stream, 1 << 16);
+            }
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(stream,
+                StandardCharsets.UTF_8), 1 << 16)) {
+            g.write(out);
+        }
+    }
+}
@@ -82,6 +82,27 @@ public interface Graph<V, E> {
     */
     Iterable<Edge<E>> edges();
 
+    /**
+        Id of vertex.
+
+        Ids are small ints, different for all vertices in the
+        graph at the same time, so traversal state can be kept in
+        arrays beside the graph (see IntLabels). The id of a
+        removed vertex may be given to a new one.
+
+        @param v Vertex position to query.
+        @return Its id, at least 0 and less than ids().
+        @throws IllegalArgumentException If vertex position
+            is invalid.
+    */
+    int id(Vertex<V> v)
+        throws IllegalArgumentException;
+    /**
+        Bound on vertex ids.
+        @return One more than the largest id handed out so far.
+    */
+    int ids();
+
     /**
         Outgoing edges of vertex.
         @param v Vertex position to explore.
@@ -105,6 +126,13 @@ public interface Graph<V, E> {
     Iterable<Edge<E>> incoming(Vertex<V> v)
         throws IllegalArgumentException;
 
+    /**
+        Cursor over the edges of a vertex.
+        @return New cursor, not pointed at any vertex yet; reuse
+          it for as many vertices as you like.
+    */
+    Cursor<V, E> cursor();
+
     /**
         Start vertex of edge.
         @param e Edge position to explore.
@@ -161,7 +189,8 @@ public interface Graph<V, E> {
     Object label(Edge<E> e)
         throws IllegalArgumentException;
     /**
-        Clear all labels.
+        Clear all labels. Takes constant time in graphs that
+        stamp labels with an epoch instead of visiting them.
     */
     void clearLabels();
 }
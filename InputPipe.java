@@ -0,0 +1,169 @@
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+    Database input read ahead on a thread of its own.
+
+    Opens a plain file, a gzipped one (told apart by its first two
+    bytes, not by its name), or standard input for "-". A
+    background thread reads and, if need be, decompresses the
+    input into blocks and hands them over through a short queue,
+    so whoever reads the pipe parses one block while the next is
+    being decompressed. The queue holds a few blocks at most; if
+    parsing falls behind, decompression waits.
+
+    Errors on the background thread come out of read() on the
+    reading side, and again on every read after that. Closing the
+    pipe stops the background thread.
+*/
+public final class InputPipe extends InputStream {
+    // Bytes per block, and blocks queued at most.
+    private static final int BLOCK = 1 << 20;
+    private static final int BLOCKS = 4;
+    // Marks the end of the input in the queue.
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> queue;
+    private final Thread thread;
+    private volatile IOException error;
+    // block being read, and where
+    private byte[] block;
+    private int position;
+
+    private InputPipe(InputStream source) {
+        this.queue = new ArrayBlockingQueue<byte[]>(BLOCKS);
+        this.block = new byte[0];
+        this.thread = new Thread(() -> this.pump(source), "InputPipe");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+        Open a database for reading.
+        @param filename Name of a plain or gzipped file, or "-" for
+            standard input.
+        @return Stream of its (decompressed) bytes.
+        @throws FileNotFoundException If the file doesn't exist.
+        @throws IOException If it can't be read.
+    */
+    public static InputStream open(String filename)
+        throws FileNotFoundException, IOException {
+        InputStream in;
+        if (filename.equals("-")) {
+            in = System.in;
+        } else {
+            try {
+                in = Files.newInputStream(Paths.get(filename));
+            } catch (NoSuchFileException e) {
+                throw new FileNotFoundException(filename);
+            }
+        }
+        BufferedInputStream buffered = new BufferedInputStream(in, 1 << 16);
+        InputStream source;
+        try {
+            buffered.mark(2);
+            boolean gzip = buffered.read() == 0x1f
+                && buffered.read() == 0x8b;
+            buffered.reset();
+            source = gzip ? new GZIPInputStream(buffered, 1 << 16)
+                : buffered;
+        } catch (IOException e) {
+            // the pipe never got it, so nothing else will close it
+            if (in != System.in) {
+                in.close();
+            }
+            throw e;
+        }
+        return new InputPipe(source);
+    }
+
+    /**
+        Whether a file is gzipped.
+        @param file File to look at.
+        @return True if it starts like a gzip file.
+        @throws IOException If it can't be read.
+    */
+    public static boolean isGzip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    // Background thread: read blocks until the input ends.
+    private void pump(InputStream source) {
+        try (InputStream in = source) {
+            while (true) {
+                byte[] b = new byte[BLOCK];
+                int n = in.readNBytes(b, 0, BLOCK);
+                if (n == 0) {
+                    break;
+                }
+                this.queue.put(n == BLOCK ? b : Arrays.copyOf(b, n));
+            }
+        } catch (IOException e) {
+            this.error = e;
+        } catch (InterruptedException e) {
+            return; // closed, nobody is reading anymore
+        }
+        try {
+            this.queue.put(END);
+        } catch (InterruptedException e) {
+            return;
+        }
+    }
+
+    // Make sure there's something left in block, false at the end.
+    private boolean fill() throws IOException {
+        while (this.position == this.block.length) {
+            if (this.block == END) {
+                // every read after a failure fails, not just the first
+                if (this.error != null) {
+                    throw this.error;
+                }
+                return false;
+            }
+            try {
+                this.block = this.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading.", e);
+            }
+            this.position = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return this.fill() ? this.block[this.position++] & 0xff : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!this.fill()) {
+            return -1;
+        }
+        int n = Math.min(len, this.block.length - this.position);
+        System.arraycopy(this.block, this.position, b, off, n);
+        this.position += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        this.thread.interrupt();
+    }
+}
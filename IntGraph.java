@@ -0,0 +1,36 @@
+/**
+    Integer view of a graph.
+
+    Vertices are numbered 0 to order()-1. The neighbors of vertex
+    v sit in slots begin(v) to end(v)-1 of one shared array, so a
+    traversal can walk adjacencies with nothing but int arithmetic
+    and keep its own state in plain arrays indexed by vertex id.
+
+    For directed graphs the neighbors are the targets of outgoing
+    edges.
+*/
+public interface IntGraph {
+    /**
+        Number of vertices.
+        @return Vertex ids range from 0 to order()-1.
+    */
+    int order();
+    /**
+        First adjacency slot of vertex.
+        @param v Vertex id.
+        @return Slot holding the first neighbor of v.
+    */
+    int begin(int v);
+    /**
+        End of adjacency slots of vertex.
+        @param v Vertex id.
+        @return One past the slot holding the last neighbor of v.
+    */
+    int end(int v);
+    /**
+        Neighbor stored in adjacency slot.
+        @param k Slot between begin(v) and end(v)-1 for some v.
+        @return Vertex id of the neighbor.
+    */
+    int target(int k);
+}
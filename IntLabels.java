@@ -0,0 +1,79 @@
+import java.util.Arrays;
+
+/**
+    Int labels for vertices, kept beside the graph.
+
+    Traversal state like distances, parents, or which search got
+    somewhere first, stored in plain arrays indexed by vertex id
+    (see Graph.id and IntGraph) instead of in Object labels on the
+    vertices themselves. Every entry carries the epoch it was
+    written in, so clear() just starts a new epoch and takes
+    constant time no matter how large the graph; repeated queries
+    don't pay for a pass over all vertices in between. And since
+    the labels don't live in the graph, any number of IntLabels
+    can be in use over the same graph at once.
+
+    Not thread-safe; give each thread its own.
+*/
+public final class IntLabels {
+    private int[] values;
+    // epoch each value was written in; 0 is never current
+    private int[] stamps;
+    private int epoch;
+
+    /**
+        New IntLabels instance.
+        @param n Number of ids to make room for; more are added
+            as needed.
+    */
+    public IntLabels(int n) {
+        this.values = new int[Math.max(n, 1)];
+        this.stamps = new int[Math.max(n, 1)];
+        this.epoch = 1;
+    }
+
+    /**
+        Check for label.
+        @param id Vertex id.
+        @return True if the id was labeled since the last clear().
+    */
+    public boolean has(int id) {
+        return id < this.stamps.length && this.stamps[id] == this.epoch;
+    }
+
+    /**
+        Read label.
+        @param id Vertex id.
+        @return The label, or -1 if the id has none.
+    */
+    public int get(int id) {
+        return this.has(id) ? this.values[id] : -1;
+    }
+
+    /**
+        Write label.
+        @param id Vertex id.
+        @param value The label.
+    */
+    public void set(int id, int value) {
+        if (id >= this.stamps.length) {
+            int n = Math.max(2 * this.stamps.length, id + 1);
+            this.values = Arrays.copyOf(this.values, n);
+            this.stamps = Arrays.copyOf(this.stamps, n);
+        }
+        this.values[id] = value;
+        this.stamps[id] = this.epoch;
+    }
+
+    /**
+        Remove all labels, in constant time.
+    */
+    public void clear() {
+        this.epoch++;
+        if (this.epoch == Integer.MAX_VALUE) {
+            // once every two billion clears
+            Arrays.fill(this.stamps, 0);
+            this.epoch = 1;
+        }
+    }
+}
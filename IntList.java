@@ -0,0 +1,77 @@
+import java.util.Arrays;
+
+/**
+    A growable array of ints.
+
+    Loaders collect millions of vertex ids before they know how
+    many there will be; an ArrayList<Integer> would box every one
+    of them.
+*/
+public final class IntList {
+    private int[] data;
+    private int size;
+
+    /** New empty IntList instance. */
+    public IntList() {
+        this.data = new int[16];
+        this.size = 0;
+    }
+
+    /**
+        Append an int.
+        @param i Value to append.
+    */
+    public void add(int i) {
+        if (this.size == this.data.length) {
+            this.data = Arrays.copyOf(this.data, 2 * this.data.length);
+        }
+        this.data[this.size++] = i;
+    }
+
+    /**
+        Read an int.
+        @param index Position to read, from 0 to size()-1.
+        @return Value at that position.
+        @throws IndexOutOfBoundsException If index is out of range.
+    */
+    public int get(int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index
+                + " out of range.");
+        }
+        return this.data[index];
+    }
+
+    /**
+        Remove the last int.
+        @return The value that was last.
+        @throws IndexOutOfBoundsException If the list is empty.
+    */
+    public int removeLast() throws IndexOutOfBoundsException {
+        if (this.size == 0) {
+            throw new IndexOutOfBoundsException("List is empty.");
+        }
+        return this.data[--this.size];
+    }
+
+    /** Remove all ints, keeping the room they took. */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+        Number of ints appended so far.
+        @return The size.
+    */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+        Copy contents into a new array of exactly size() ints.
+        @return The array.
+    */
+    public int[] toArray() {
+        return Arrays.copyOf(this.data, this.size);
+    }
+}
@@ -1,12 +1,18 @@
 import java.util.Map;
 import java.util.HashMap;
+import java.util.List;
+import java.util.ArrayList;
 import java.util.Queue;
-import java.util.LinkedList;
-import java.io.File;
+import java.util.Deque;
+import java.util.ArrayDeque;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.FileReader;
+import java.io.InputStreamReader;
 import java.io.BufferedReader;
+import java.io.FileWriter;
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 
 /**
     Six Degrees of Kevin Bacon.
@@ -26,40 +32,80 @@ public final class Kevin {
     private static Vertex<String> actor = null;
     private static Vertex<String> bacon = null;
 
+    // Timings and counters of this run, printed on exit with
+    // --stats.
+    private static Stats stats = new Stats(false);
+    private static boolean printStats = false;
+
+    // File to write the path to for GraphViz, or null.
+    private static String dotFile = null;
+
     // Shut up checkstyle.
     private Kevin() {}
 
+    // End the run: hand the stats to the flight recorder, print
+    // them if asked to, and exit.
+    private static void exit(int status) {
+        stats.finish();
+        if (printStats) {
+            stats.print(System.err);
+        }
+        System.exit(status);
+    }
+
     // Read input file and turn it into a Graph.
     //
     // There's one line for each movie, with the fields separated
     // by "/". The first field is the movie, the remaining fields
-    // are actors.
+    // are actors. The file may be gzipped, or "-" for standard
+    // input; either way an InputPipe reads (and decompresses) it
+    // on another thread while lines are turned into vertices here.
     //
     // Generates a bipartite graph in which both movies and actors
     // are vertices. A graph in which all vertices are actors and
     // movies are edges would be HORRIBLE instead (why?).
     //
     // This function also sets up the "actor" and "bacon" globals
-    // that will be used to direct the breadth-first-search.
-    private static void readInput(String filename, String who)
+    // that will be used to direct the breadth-first-search. Any
+    // graph read before is dropped, and so are its stats.
+    static void readInput(String filename, String who)
         throws FileNotFoundException, IOException {
+        stats = new Stats(printStats);
+        graph = new SparseGraph<String, String>();
+        actor = null;
+        bacon = null;
+
         // keep track of all vertices created so far by name
         Map<String, Vertex<String>> vertices = new HashMap<>();
 
         // how we read the input
-        BufferedReader reader = new BufferedReader(new FileReader(
-            new File(filename)));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            InputPipe.open(filename), StandardCharsets.UTF_8));
         String line;
 
+        // time spent on each part of the work, and how much of it
+        stats.begin("read");
+        int parse = stats.phase("read.parse", "lines");
+        int lookup = stats.phase("read.lookup", "lookups");
+        int insert = stats.phase("read.insert", "edges");
+        long lines = 0;
+        long lookups = 0;
+        long created = 0;
+
         while ((line = reader.readLine()) != null) {
             String[] data = line.split("/");
+            lines++;
+            stats.lap(parse);
 
             // find or create vertex for the movie
             Vertex<String> m = vertices.get(data[0]);
             if (m == null) {
                 m = graph.insert(data[0]);
                 vertices.put(data[0], m);
+                created++;
             }
+            lookups++;
+            stats.lap(lookup);
 
             for (int i = 1; i < data.length; i++) {
                 // find or create vertex for the actor
@@ -67,7 +113,10 @@ public final class Kevin {
                 if (a == null) {
                     a = graph.insert(data[i]);
                     vertices.put(data[i], a);
+                    created++;
                 }
+                lookups++;
+                stats.lap(lookup);
 
                 // double-check for special actors
                 if (a.get().equals("Bacon, Kevin")) {
@@ -80,25 +129,130 @@ public final class Kevin {
                 // create two edges, from and to the movie
                 graph.insert(m, a, "features");
                 graph.insert(a, m, "acts in");
+                stats.lap(insert);
+            }
+        }
+        reader.close();
+        stats.count("lines", lines);
+        stats.count("lookups", lookups);
+        stats.count("vertices", created);
+        stats.count("edges", 2 * (lookups - lines));
+    }
+
+    // Graph and Bacon as read by the last readInput, for the
+    // benchmarks; null before any.
+    static Graph<String, String> graph() {
+        return graph;
+    }
+
+    static Vertex<String> bacon() {
+        return bacon;
+    }
+
+    // Same as readInput, but builds a BipartiteGraph with movies
+    // on the left and actors on the right, so every credit is a
+    // single edge. A movie and an actor that share a name are two
+    // vertices here.
+    private static void readBipartite(String filename, String who)
+        throws FileNotFoundException, IOException {
+        BipartiteGraph<String, String> g =
+            new BipartiteGraph<String, String>("features", "acts in");
+        Map<String, Vertex<String>> movies = new HashMap<>();
+        Map<String, Vertex<String>> actors = new HashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+            InputPipe.open(filename), StandardCharsets.UTF_8));
+        String line;
+        stats.begin("read");
+        int read = stats.phase("read", "lines");
+        long lines = 0;
+
+        while ((line = reader.readLine()) != null) {
+            String[] data = line.split("/");
+            lines++;
+
+            Vertex<String> m = movies.get(data[0]);
+            if (m == null) {
+                m = g.insert(data[0], true);
+                movies.put(data[0], m);
+            }
+
+            for (int i = 1; i < data.length; i++) {
+                Vertex<String> a = actors.get(data[i]);
+                if (a == null) {
+                    a = g.insert(data[i], false);
+                    actors.put(data[i], a);
+                }
+                g.insert(m, a, "features");
             }
         }
+        reader.close();
+        stats.lap(read);
+        stats.count("lines", lines);
+        stats.count("vertices", g.ids());
+
+        graph = g;
+        bacon = actors.get("Bacon, Kevin");
+        actor = actors.get(who);
     }
 
+    // Same as readInput, but loads an immutable CompactGraph
+    // through Database instead of building a SparseGraph.
+    private static void readCompact(String filename, String who)
+        throws FileNotFoundException, IOException {
+        stats.begin("read");
+        int read = stats.phase("read", "vertices");
+        Database db = Database.load(filename);
+        CompactGraph<String, String> g = db.toGraph();
+        stats.lap(read);
+        stats.count("vertices", db.order());
+        int b = db.id("Bacon, Kevin");
+        int w = db.id(who);
+
+        graph = g;
+        bacon = b < 0 ? null : g.vertex(b);
+        actor = w < 0 ? null : g.vertex(w);
+    }
+
+    // Find a path from the actor to Bacon with a breadth-first
+    // search from Bacon. Returns the vertices along the path
+    // without printing anything, so benchmarks can call it over
+    // and over, or null if the search runs out of vertices before
+    // it reaches the actor.
     @SuppressWarnings("unchecked") // typesafe because only Vertex labels
-    private static void solveBacon() {
-        Queue<Vertex<String>> q = new LinkedList<Vertex<String>>();
+    static List<Vertex<String>> baconPath() {
+        // nothing for stats unless they're wanted, this runs in
+        // benchmark loops
+        boolean record = stats.recording();
+        int search = -1;
+        if (record) {
+            stats.begin("search");
+            search = stats.phase("search", "dequeued");
+        }
+        graph.clearLabels();
+        Queue<Vertex<String>> q = new ArrayDeque<Vertex<String>>();
         q.add(bacon);
 
         // a link back to 'actor' serves as our marker that
         // we've hit the end of the path
         graph.label(bacon, actor);
 
-        // find path
+        // the current level ends once 'dequeued' reaches 'end'
+        long dequeued = 0;
+        long scanned = 0;
+        long start = 0;
+        long end = 1;
+        long levelScanned = 0;
+        int level = 0;
+
+        // find path; the cursor walks edges without copying them
+        Cursor<String, String> outs = graph.cursor();
         Vertex<String> top = q.peek();
-        while (top != actor) {
-            Iterable<Edge<String>> outs = graph.outgoing(top);
-            for (Edge<String> e : outs) {
-                Vertex<String> to = graph.to(e);
+        while (top != null && top != actor) {
+            outs.outgoing(top);
+            while (outs.next()) {
+                Vertex<String> to = outs.other();
+                scanned++;
                 if (graph.label(to) == null) {
                     q.add(to);
                     graph.label(to, top);
@@ -106,39 +260,299 @@ public final class Kevin {
             }
             q.remove();
             top = q.peek();
+            if (++dequeued == end) {
+                if (record) {
+                    stats.level(level, end - start, scanned - levelScanned);
+                }
+                level++;
+                levelScanned = scanned;
+                start = end;
+                end = dequeued + q.size();
+            }
+        }
+        if (record) {
+            stats.lap(search);
+            stats.count("dequeued", dequeued);
+            stats.count("scanned", scanned);
+        }
+        if (top == null) {
+            return null;
         }
 
-        // print path (using Vertex labels) and exit
+        // collect path (using Vertex labels)
+        List<Vertex<String>> path = new ArrayList<Vertex<String>>();
         Vertex<String> curr = top;
         do {
-            System.out.println(curr.get());
+            path.add(curr);
             curr = (Vertex<String>) graph.label(curr);
         } while (curr != actor);
-        System.exit(0);
+        return path;
+    }
+
+    private static void solveBacon() throws IOException {
+        List<Vertex<String>> path = baconPath();
+        if (path == null) {
+            System.out.printf("Error: Can't connect %s to Bacon, Kevin.\n",
+                actor.get());
+            exit(1);
+        }
+        for (Vertex<String> v : path) {
+            System.out.println(v.get());
+        }
+        writeDot(path);
+    }
+
+    // Write a path and the movies of the actors on it for GraphViz,
+    // if asked to with --dot.
+    private static void writeDot(List<Vertex<String>> path)
+        throws IOException {
+        if (dotFile != null) {
+            try (Writer out = new BufferedWriter(new FileWriter(dotFile))) {
+                DotWriter.path(graph, path, out);
+            }
+        }
+    }
+
+    // Vertex label for bidirectional search: which of the two
+    // searches reached the vertex, and from where. The parent is
+    // null for the vertex a search started from.
+    private static final class Mark {
+        private final boolean fromActor;
+        private final Vertex<String> parent;
+
+        Mark(boolean a, Vertex<String> p) {
+            this.fromActor = a;
+            this.parent = p;
+        }
+    }
+
+    // Expand one whole level of a search. The search from Bacon
+    // follows outgoing edges, the one from the actor follows
+    // incoming edges backwards. Returns the vertex of the other
+    // search that was hit first, or null if the searches didn't
+    // meet; in that case the queue holds the next level.
+    private static Vertex<String> expand(Queue<Vertex<String>> q,
+          boolean fromActor, Cursor<String, String> c,
+          Vertex<String>[] meeting) {
+        for (int n = q.size(); n > 0; n--) {
+            Vertex<String> top = q.remove();
+            if (fromActor) {
+                c.incoming(top);
+            } else {
+                c.outgoing(top);
+            }
+            while (c.next()) {
+                Vertex<String> next = c.other();
+                Mark m = (Mark) graph.label(next);
+                if (m == null) {
+                    graph.label(next, new Mark(fromActor, top));
+                    q.add(next);
+                } else if (m.fromActor != fromActor) {
+                    meeting[0] = top;
+                    return next;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Same as solveBacon, but grows one search from each end and
+    // always expands the one with the smaller frontier, stopping as
+    // soon as they meet. Both searches go level by level, so the
+    // first meeting lies on a shortest path.
+    @SuppressWarnings("unchecked") // no generic array creation
+    private static void solveBidirectional() throws IOException {
+        stats.begin("search");
+        int search = stats.phase("search", null);
+        Queue<Vertex<String>> fromBacon = new ArrayDeque<Vertex<String>>();
+        Queue<Vertex<String>> fromActor = new ArrayDeque<Vertex<String>>();
+        fromBacon.add(bacon);
+        fromActor.add(actor);
+        graph.label(bacon, new Mark(false, null));
+        if (actor != bacon) {
+            graph.label(actor, new Mark(true, null));
+        }
+
+        // last vertex of the actor's half, first of Bacon's half
+        Vertex<String> near = actor == bacon ? actor : null;
+        Vertex<String> far = null;
+        Vertex<String>[] meeting = (Vertex<String>[]) new Vertex<?>[1];
+        Cursor<String, String> edges = graph.cursor();
+        while (near == null && !fromBacon.isEmpty() && !fromActor.isEmpty()) {
+            if (fromActor.size() < fromBacon.size()) {
+                far = expand(fromActor, true, edges, meeting);
+                near = far == null ? null : meeting[0];
+            } else {
+                near = expand(fromBacon, false, edges, meeting);
+                far = near == null ? null : meeting[0];
+            }
+        }
+        stats.lap(search);
+        if (near == null) {
+            System.out.printf("Error: Can't connect %s to Bacon, Kevin.\n",
+                actor.get());
+            exit(1);
+        }
+
+        // print path: the actor's half backwards, then Bacon's half
+        Deque<Vertex<String>> half = new ArrayDeque<Vertex<String>>();
+        for (Vertex<String> c = near; c != null;
+              c = ((Mark) graph.label(c)).parent) {
+            half.push(c);
+        }
+        List<Vertex<String>> path = new ArrayList<Vertex<String>>(half);
+        for (Vertex<String> c = far; c != null;
+              c = ((Mark) graph.label(c)).parent) {
+            path.add(c);
+        }
+        for (Vertex<String> c : path) {
+            System.out.println(c.get());
+        }
+        writeDot(path);
+        exit(0);
+    }
+
+    // Same as readInput and solveBacon, but reads the path off a
+    // BaconIndex saved next to the database, building the index
+    // first if there is none yet. Needs no graph labels at all.
+    private static void solveIndexed(String filename, String who)
+        throws IOException {
+        Database db = Database.load(filename);
+        int b = db.id("Bacon, Kevin");
+        int w = db.id(who);
+        if (w < 0) {
+            System.out.printf("Error: Can't find %s in database.\n", who);
+            exit(1);
+        }
+        if (b < 0) {
+            System.out.printf("Error: Can't find Bacon, Kevin in database.\n");
+            exit(1);
+        }
+
+        int[] path = BaconIndex.open(filename, db, b).path(w);
+        if (path == null) {
+            System.out.printf("Error: Can't connect %s to Bacon, Kevin.\n",
+                who);
+            exit(1);
+        }
+        for (int v : path) {
+            System.out.println(db.name(v));
+        }
+        exit(0);
     }
 
     /**
         Main method.
+
+        Usage: java Kevin [--compact] [--bipartite] [--bidirectional]
+                          [--index] [--stats] [--dot file]
+                          database actor
+
+        With --compact the database is loaded into a CompactGraph,
+        which needs a fraction of the memory of a SparseGraph. With
+        --bipartite it is loaded into a BipartiteGraph instead,
+        which stores every credit as one edge rather than two. With
+        --bidirectional the path is found by searching from both
+        ends at once, which visits far fewer vertices for actors
+        that are far from Bacon. With --index the Bacon numbers of
+        everybody are computed once and saved to database.bacon,
+        after which queries need no search at all.
+
+        Wherever a database is loaded into a CompactGraph, a
+        snapshot written by Snapshot works too, and is used in
+        place of a text database when it sits next to it.
+
+        The database may be gzipped, and is read from standard
+        input if it is "-" (except with --index, which keeps its
+        index next to the database file).
+
+        With --dot the path is also written to a file for GraphViz,
+        together with all the movies of the actors on it (not with
+        --index, which has no graph to take them from).
+
+        With --stats a summary of where the time went is printed to
+        standard error at the end: time and throughput of reading
+        (split into parsing lines, looking up vertices and inserting
+        edges for a SparseGraph) and of searching, counters, and the
+        frontier size of every search level. Timings and counters
+        are also recorded as Flight Recorder events (see Stats), with
+        or without --stats.
+
         @param args Command line arguments.
         @throws FileNotFoundException If database file cannot be opened.
         @throws IOException If database file cannot be read properly.
     */
     public static void main(String[] args)
         throws FileNotFoundException, IOException {
+        // leading options pick a variant, the rest are operands
+        boolean compact = false;
+        boolean bipartite = false;
+        boolean bidirectional = false;
+        boolean index = false;
+        int o = 0;
+        while (o < args.length && args[o].startsWith("--")) {
+            if (args[o].equals("--compact")) {
+                compact = true;
+            } else if (args[o].equals("--bipartite")) {
+                bipartite = true;
+            } else if (args[o].equals("--bidirectional")) {
+                bidirectional = true;
+            } else if (args[o].equals("--index")) {
+                index = true;
+            } else if (args[o].equals("--dot") && o + 1 < args.length) {
+                dotFile = args[++o];
+            } else if (args[o].equals("--stats")) {
+                stats = new Stats(true);
+                printStats = true;
+            } else {
+                System.out.printf("Error: Unknown option %s.\n", args[o]);
+                exit(1);
+            }
+            o++;
+        }
+        if (args.length - o != 2) {
+            System.out.printf("Usage: java Kevin [--compact] [--bipartite] "
+                + "[--bidirectional] [--index] [--stats] [--dot file] "
+                + "database actor\n");
+            exit(1);
+        }
+        String database = args[o];
+        String who = args[o + 1];
+
+        // the index needs neither graph nor globals
+        if (index && database.equals("-")) {
+            System.out.printf("Error: --index needs a database file.\n");
+            exit(1);
+        }
+        if (index) {
+            solveIndexed(database, who);
+        }
+
         // read the input, initialize globals
-        readInput(args[0], args[1]);
+        if (compact) {
+            readCompact(database, who);
+        } else if (bipartite) {
+            readBipartite(database, who);
+        } else {
+            readInput(database, who);
+        }
 
         // check that we could find both actors, quit if not
         if (actor == null) {
-            System.out.printf("Error: Can't find %s in database.\n", args[1]);
-            System.exit(1);
+            System.out.printf("Error: Can't find %s in database.\n", who);
+            exit(1);
         }
         if (bacon == null) {
             System.out.printf("Error: Can't find Bacon, Kevin in database.\n");
-            System.exit(1);
+            exit(1);
         }
 
         // play "six degrees of Kevin Bacon" using breadth-first search
-        solveBacon();
+        if (bidirectional) {
+            solveBidirectional();
+        } else {
+            solveBacon();
+        }
+        exit(0);
     }
 }
@@ -0,0 +1,620 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+    Exact distances between any two vertices, from 2-hop labels.
+
+    Every vertex gets a label: a list of hubs and its distance to
+    each. Labels are built so that for any two vertices some
+    shortest path between them goes through a hub both of them
+    have, which makes the distance the smallest sum of the two
+    distances over the hubs they share; with both lists sorted
+    that is one merge, a few microseconds.
+
+    Labels are built by pruned landmark labeling (Akiba et al.):
+    vertices are taken in order of degree, busiest first, and a
+    breadth-first search from each adds it as a hub to what it
+    reaches, but stops at every vertex whose distance the labels
+    already get right. Searches from later vertices are pruned so
+    early that labels stay small, since most shortest paths go
+    through a few busy vertices.
+
+    To build on all cores, searches run in batches: those of one
+    batch run at once and prune only with labels of the batches
+    before, so they may add a few labels a strict order wouldn't
+    have, but never wrong ones. The first searches, which prune
+    the most, run alone; batches grow as the searches get smaller.
+
+    Labels are kept in one array of hubs (by their rank in the
+    order) and one of distances, a byte each, with an offset per
+    vertex; saved next to the database they are a few bytes per
+    label, and are used again as long as the database stays the
+    same.
+
+    Paths are read off the labels too: from the source, step to
+    any neighbor one closer to the target, and so on.
+
+    Usage: java LandmarkLabels database [actor actor]
+    builds (or loads) the labels of a database and prints the
+    distance and a path between two actors, or times random queries
+    against searches if no actors are given.
+*/
+public final class LandmarkLabels {
+    private static final int MAGIC = 0x4c61626c; // "Labl"
+    private static final int VERSION = 1;
+    // Largest number of searches in one batch.
+    private static final int MAX_BATCH = 1024;
+    // Distances must fit in an unsigned byte.
+    private static final int MAX_DISTANCE = 255;
+    // Longest key a file may have; BaconIndex keys are 48 bytes.
+    private static final int MAX_KEY = 1024;
+
+    private final IntGraph graph;
+    // labels of vertex v are positions offsets[v] to offsets[v+1]
+    // of hubs and distances, sorted by hub rank
+    private final int[] offsets;
+    private final int[] hubs;
+    private final byte[] distances;
+
+    private LandmarkLabels(IntGraph g, int[] o, int[] h, byte[] d) {
+        this.graph = g;
+        this.offsets = o;
+        this.hubs = h;
+        this.distances = d;
+    }
+
+    // Labels while building: hubs and distances of every vertex,
+    // appended in order of rank.
+    private static final class Builder {
+        private final IntGraph graph;
+        private final int[] order;
+        private final int[][] hubs;
+        private final byte[][] distances;
+        private final int[] sizes;
+        private final ConcurrentLinkedDeque<Search> pool;
+
+        Builder(IntGraph g) {
+            int n = g.order();
+            this.graph = g;
+            this.hubs = new int[n][];
+            this.distances = new byte[n][];
+            this.sizes = new int[n];
+            this.pool = new ConcurrentLinkedDeque<Search>();
+
+            // busiest first, ties by id so the order is always the
+            // same
+            Integer[] byDegree = new Integer[n];
+            for (int v = 0; v < n; v++) {
+                byDegree[v] = v;
+            }
+            Arrays.sort(byDegree, (a, b) -> {
+                int da = g.end(a) - g.begin(a);
+                int db = g.end(b) - g.begin(b);
+                return da != db ? Integer.compare(db, da)
+                    : Integer.compare(a, b);
+            });
+            this.order = new int[n];
+            for (int r = 0; r < n; r++) {
+                this.order[r] = byDegree[r];
+            }
+        }
+
+        void add(int v, int hub, int d) {
+            if (this.hubs[v] == null) {
+                this.hubs[v] = new int[4];
+                this.distances[v] = new byte[4];
+            } else if (this.sizes[v] == this.hubs[v].length) {
+                int n = 2 * this.sizes[v];
+                this.hubs[v] = Arrays.copyOf(this.hubs[v], n);
+                this.distances[v] = Arrays.copyOf(this.distances[v], n);
+            }
+            this.hubs[v][this.sizes[v]] = hub;
+            this.distances[v][this.sizes[v]] = (byte) d;
+            this.sizes[v]++;
+        }
+
+        Search borrow() {
+            Search s = this.pool.pollFirst();
+            return s != null ? s : new Search(this);
+        }
+
+        void giveBack(Search s) {
+            this.pool.offerFirst(s);
+        }
+    }
+
+    // One pruned search, with scratch space for reuse.
+    private static final class Search {
+        private final Builder builder;
+        // distance from the root to each of its hubs, by rank;
+        // MAX_VALUE for hubs it doesn't have
+        private final int[] rootDistance;
+        private final IntLabels reached;
+        private final IntList queue;
+        // what the last search found: vertices and distances
+        private IntList found;
+
+        Search(Builder b) {
+            this.builder = b;
+            this.rootDistance = new int[b.graph.order()];
+            Arrays.fill(this.rootDistance, Integer.MAX_VALUE);
+            this.reached = new IntLabels(b.graph.order());
+            this.queue = new IntList();
+        }
+
+        // Search from the vertex of the given rank; results go in
+        // found, as vertex and distance pairs.
+        IntList run(int rank) {
+            Builder b = this.builder;
+            IntGraph g = b.graph;
+            int root = b.order[rank];
+            for (int i = 0; i < b.sizes[root]; i++) {
+                this.rootDistance[b.hubs[root][i]] =
+                    b.distances[root][i] & 0xff;
+            }
+            this.found = new IntList();
+            this.reached.clear();
+            this.queue.clear();
+            this.queue.add(root);
+            this.reached.set(root, 0);
+            for (int head = 0; head < this.queue.size(); head++) {
+                int v = this.queue.get(head);
+                int d = this.reached.get(v);
+                if (this.covered(v, d)) {
+                    continue;
+                }
+                if (d > MAX_DISTANCE) {
+                    throw new IllegalArgumentException("Graph too deep "
+                        + "for labels.");
+                }
+                this.found.add(v);
+                this.found.add(d);
+                for (int k = g.begin(v); k < g.end(v); k++) {
+                    int w = g.target(k);
+                    if (!this.reached.has(w)) {
+                        this.reached.set(w, d + 1);
+                        this.queue.add(w);
+                    }
+                }
+            }
+            for (int i = 0; i < b.sizes[root]; i++) {
+                this.rootDistance[b.hubs[root][i]] = Integer.MAX_VALUE;
+            }
+            return this.found;
+        }
+
+        // Whether labels so far put v at most d from the root.
+        private boolean covered(int v, int d) {
+            Builder b = this.builder;
+            for (int i = 0; i < b.sizes[v]; i++) {
+                int r = this.rootDistance[b.hubs[v][i]];
+                if (r != Integer.MAX_VALUE
+                      && r + (b.distances[v][i] & 0xff) <= d) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Searches from ranks lo..hi-1, split down to one each.
+    private static final class Batch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Builder builder;
+        private final IntList[] results;
+        private final int base;
+        private final int lo;
+        private final int hi;
+
+        Batch(Builder b, IntList[] r, int s, int l, int h) {
+            this.builder = b;
+            this.results = r;
+            this.base = s;
+            this.lo = l;
+            this.hi = h;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.hi - this.lo > 1) {
+                int mid = (this.lo + this.hi) >>> 1;
+                invokeAll(new Batch(this.builder, this.results, this.base,
+                    this.lo, mid), new Batch(this.builder, this.results,
+                    this.base, mid, this.hi));
+                return;
+            }
+            Search s = this.builder.borrow();
+            try {
+                this.results[this.lo - this.base] = s.run(this.lo);
+            } finally {
+                this.builder.giveBack(s);
+            }
+        }
+    }
+
+    /**
+        Build labels on the common fork-join pool.
+        @param g Symmetric graph to label.
+        @return The labels.
+        @throws IllegalArgumentException If two vertices are more
+            than 255 edges apart.
+    */
+    public static LandmarkLabels build(IntGraph g)
+        throws IllegalArgumentException {
+        return build(g, ForkJoinPool.commonPool());
+    }
+
+    /**
+        Build labels on a given fork-join pool.
+        @param g Symmetric graph to label.
+        @param pool Pool to run searches on.
+        @return The labels.
+        @throws IllegalArgumentException If two vertices are more
+            than 255 edges apart.
+    */
+    public static LandmarkLabels build(IntGraph g, ForkJoinPool pool)
+        throws IllegalArgumentException {
+        Builder b = new Builder(g);
+        int n = g.order();
+        int rank = 0;
+        while (rank < n) {
+            int size = Math.min(Math.max(1, rank / 4), MAX_BATCH);
+            int end = Math.min(rank + size, n);
+            IntList[] results = new IntList[end - rank];
+            pool.invoke(new Batch(b, results, rank, rank, end));
+            // commit in order of rank, so labels stay sorted
+            for (int i = 0; i < results.length; i++) {
+                IntList found = results[i];
+                for (int j = 0; j < found.size(); j += 2) {
+                    b.add(found.get(j), rank + i, found.get(j + 1));
+                }
+            }
+            rank = end;
+        }
+
+        int[] offsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] = offsets[v] + b.sizes[v];
+        }
+        int[] hubs = new int[offsets[n]];
+        byte[] distances = new byte[offsets[n]];
+        for (int v = 0; v < n; v++) {
+            if (b.sizes[v] > 0) {
+                System.arraycopy(b.hubs[v], 0, hubs, offsets[v], b.sizes[v]);
+                System.arraycopy(b.distances[v], 0, distances, offsets[v],
+                    b.sizes[v]);
+            }
+        }
+        return new LandmarkLabels(g, offsets, hubs, distances);
+    }
+
+    /**
+        Number of vertices labeled.
+        @return Same as order() of the graph.
+    */
+    public int order() {
+        return this.offsets.length - 1;
+    }
+
+    /**
+        Total size of all labels.
+        @return Number of hub and distance pairs.
+    */
+    public int size() {
+        return this.hubs.length;
+    }
+
+    /**
+        Distance between two vertices.
+        @param s Vertex id.
+        @param t Vertex id.
+        @return Number of edges on a shortest path between them, -1
+            if there is none.
+    */
+    public int distance(int s, int t) {
+        int i = this.offsets[s];
+        int j = this.offsets[t];
+        int iEnd = this.offsets[s + 1];
+        int jEnd = this.offsets[t + 1];
+        int best = Integer.MAX_VALUE;
+        while (i < iEnd && j < jEnd) {
+            int a = this.hubs[i];
+            int b = this.hubs[j];
+            if (a == b) {
+                int d = (this.distances[i] & 0xff)
+                    + (this.distances[j] & 0xff);
+                best = Math.min(best, d);
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+        Shortest path between two vertices, from labels alone.
+        @param s Vertex id where the path starts.
+        @param t Vertex id where the path ends.
+        @return Vertex ids along the path, or null if there is none.
+    */
+    public int[] path(int s, int t) {
+        int d = this.distance(s, t);
+        if (d < 0) {
+            return null;
+        }
+        int[] path = new int[d + 1];
+        path[0] = s;
+        for (int i = 1; i <= d; i++) {
+            int v = path[i - 1];
+            for (int k = this.graph.begin(v); k < this.graph.end(v); k++) {
+                int w = this.graph.target(k);
+                if (this.distance(w, t) == d - i) {
+                    path[i] = w;
+                    break;
+                }
+            }
+        }
+        return path;
+    }
+
+    private static void writeInts(DataOutputStream out, int[] a)
+        throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        for (int i = 0; i < a.length; i += buffer.capacity() / 4) {
+            buffer.clear();
+            int n = Math.min(buffer.capacity() / 4, a.length - i);
+            buffer.asIntBuffer().put(a, i, n);
+            out.write(buffer.array(), 0, 4 * n);
+        }
+    }
+
+    private static void readInts(DataInputStream in, int[] a)
+        throws IOException {
+        byte[] bytes = new byte[1 << 16];
+        for (int i = 0; i < a.length; i += bytes.length / 4) {
+            int n = Math.min(bytes.length / 4, a.length - i);
+            in.readFully(bytes, 0, 4 * n);
+            ByteBuffer.wrap(bytes).asIntBuffer().get(a, i, n);
+        }
+    }
+
+    /**
+        Write labels to file.
+
+        The file is replaced atomically, so concurrent readers see
+        either the old or the new labels.
+
+        @param file File to write.
+        @param key Key of the database the labels were built from,
+            see BaconIndex.key.
+        @throws IOException If the file cannot be written.
+    */
+    public void save(Path file, byte[] key) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(key.length);
+            out.write(key);
+            out.writeInt(this.order());
+            out.writeInt(this.size());
+            writeInts(out, this.offsets);
+            writeInts(out, this.hubs);
+            out.write(this.distances);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+        Read labels from file.
+        @param file File to read.
+        @param key Key the labels should have been saved with.
+        @param g Graph of that database, for paths.
+        @return The labels, or null if the file doesn't exist, is
+            damaged, or belongs to a different database.
+        @throws IOException If the file exists but cannot be read.
+    */
+    public static LandmarkLabels load(Path file, byte[] key, IntGraph g)
+        throws IOException {
+        return read(file, key, null, g);
+    }
+
+    /**
+        Read labels for a database file from file.
+        @param file File to read.
+        @param source Database file the labels should belong to.
+        @param g Graph of that database, for paths.
+        @return The labels, or null if the file doesn't exist, is
+            damaged, or belongs to a different database.
+        @throws IOException If a file exists but cannot be read.
+    */
+    public static LandmarkLabels load(Path file, Path source, IntGraph g)
+        throws IOException {
+        return read(file, null, source, g);
+    }
+
+    // Read file, checking its key against key or else source.
+    private static LandmarkLabels read(Path file, byte[] key, Path source,
+          IntGraph g) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            int length = in.readInt();
+            if (length < 0 || length > MAX_KEY) {
+                return null;
+            }
+            byte[] stored = new byte[length];
+            in.readFully(stored);
+            if (source == null ? !Arrays.equals(stored, key)
+                  : !BaconIndex.matches(stored, source)) {
+                return null;
+            }
+            int n = in.readInt();
+            int size = in.readInt();
+            // five bytes a label, so a size the file can't hold
+            // is damage, not a reason to run out of memory
+            if (n != g.order() || size < 0 || size > Files.size(file)) {
+                return null;
+            }
+            int[] offsets = new int[n + 1];
+            int[] hubs = new int[size];
+            byte[] distances = new byte[size];
+            readInts(in, offsets);
+            readInts(in, hubs);
+            in.readFully(distances);
+            if (!valid(offsets, hubs, n)) {
+                return null;
+            }
+            return new LandmarkLabels(g, offsets, hubs, distances);
+        } catch (NoSuchFileException | EOFException e) {
+            return null;
+        }
+    }
+
+    // Offsets run from 0 to the number of labels without going
+    // back, and the hubs of every vertex are vertex ids in
+    // increasing order, as distance() and path() rely on.
+    private static boolean valid(int[] offsets, int[] hubs, int n) {
+        if (offsets[0] != 0 || offsets[n] != hubs.length) {
+            return false;
+        }
+        for (int v = 0; v < n; v++) {
+            if (offsets[v] > offsets[v + 1]) {
+                return false;
+            }
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                if (hubs[i] < 0 || hubs[i] >= n
+                      || i > offsets[v] && hubs[i] <= hubs[i - 1]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+        Labels for a database file, built only if needed.
+
+        Looks for filename + ".labels" first; if that is missing or
+        stale, builds new labels and saves them there for next time.
+
+        @param filename Name of the database file.
+        @param db The database loaded from that file.
+        @return The labels.
+        @throws IOException If a file cannot be read or written.
+    */
+    public static LandmarkLabels open(String filename, Database db)
+        throws IOException {
+        Path file = Paths.get(filename + ".labels");
+        Path source = Paths.get(filename);
+        LandmarkLabels labels = load(file, source, db.graph());
+        if (labels == null) {
+            labels = build(db.graph());
+            labels.save(file, BaconIndex.key(source));
+        }
+        return labels;
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 3) {
+            System.out.printf("Usage: java LandmarkLabels database "
+                + "[actor actor]\n");
+            System.exit(1);
+        }
+
+        Database db = Database.load(args[0]);
+        long t = System.nanoTime();
+        LandmarkLabels labels = open(args[0], db);
+        System.err.printf("%d labels, %.1f per vertex, ready in %.1f ms\n",
+            labels.size(), (double) labels.size() / labels.order(),
+            (System.nanoTime() - t) / 1e6);
+
+        if (args.length == 3) {
+            int s = db.id(args[1]);
+            int u = db.id(args[2]);
+            if (s < 0 || u < 0) {
+                System.out.printf("Error: Can't find %s in database.\n",
+                    s < 0 ? args[1] : args[2]);
+                System.exit(1);
+            }
+            int[] path = labels.path(s, u);
+            if (path == null) {
+                System.out.printf("Error: Can't connect %s to %s.\n",
+                    args[1], args[2]);
+                System.exit(1);
+            }
+            for (int v : path) {
+                System.out.println(db.name(v));
+            }
+            return;
+        }
+
+        // random pairs, timed against searches and checked
+        IntGraph g = db.graph();
+        int queries = 100000;
+        Random random = new Random(21);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = random.nextInt(g.order());
+            targets[i] = random.nextInt(g.order());
+        }
+        long sum = 0;
+        t = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            sum += labels.distance(sources[i], targets[i]);
+        }
+        double label = (System.nanoTime() - t) / 1e3 / queries;
+
+        int checked = Math.min(queries, 1000);
+        PathSearch search = new PathSearch(g);
+        List<Integer> wrong = new ArrayList<Integer>();
+        t = System.nanoTime();
+        for (int i = 0; i < checked; i++) {
+            int[] p = search.path(sources[i], targets[i]);
+            if ((p == null ? -1 : p.length - 1)
+                  != labels.distance(sources[i], targets[i])) {
+                wrong.add(i);
+            }
+        }
+        double bfs = (System.nanoTime() - t) / 1e3 / checked;
+        System.out.printf("labels %.2f us/query, search %.2f us/query "
+            + "(checksum %d)\n", label, bfs, sum);
+        if (!wrong.isEmpty()) {
+            System.out.printf("Error: %d of %d distances differ.\n",
+                wrong.size(), checked);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,360 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+    Shortest paths between any two vertices, searched towards the
+    target with the help of a few landmarks (ALT: A*, landmarks and
+    the triangle inequality).
+
+    Distances to and from every landmark are found once, with two
+    breadth-first searches each. If going from v to t were shorter
+    than d(L, t) - d(L, v) or d(v, L) - d(t, L) for some landmark
+    L, there would be a shortcut to or from L, so the largest of
+    these is a lower bound on the distance from v to t. A* expands
+    vertices in order of distance so far plus that bound, which
+    keeps a search from wandering off away from the target, and
+    still finds a shortest path since the bound never overestimates
+    (and, like the real distance, changes by at most one along an
+    edge). If a landmark reaches v but not t, or the other way
+    around, there is no path at all and v is never queued.
+
+    Landmarks are the busiest vertices, skipping those within two
+    edges of one taken before so they point in different
+    directions. The index is a byte per landmark and direction for
+    each vertex, far smaller than LandmarkLabels; more landmarks
+    give tighter bounds and fewer expanded vertices at the cost of
+    a longer build and more work per vertex. With no landmarks the
+    bound is always zero and the search is plain breadth-first
+    search, which is what expanded() is measured against.
+
+    All traversal state lives in this object, not in graph labels,
+    but a single instance is not thread-safe. The graph must not
+    change after the landmarks are found.
+
+    Usage: java LandmarkSearch database [landmarks [actor actor]]
+    finds 16 (or the given number of) landmarks and prints a path
+    between two actors, or compares vertices expanded with plain
+    breadth-first search on random pairs if no actors are given.
+
+    @param <V> Type of vertex element
+    @param <E> Type of edge element
+*/
+public final class LandmarkSearch<V, E> {
+    // Stored for vertices a landmark doesn't reach (or isn't
+    // reached from); real distances must be smaller.
+    private static final int UNREACHED = 0xff;
+    // Bound for vertices that can't reach the target.
+    private static final int NO_PATH = Integer.MAX_VALUE;
+
+    private final Graph<V, E> graph;
+    private final List<Vertex<V>> landmarks;
+    // distances from and to each landmark, by vertex id
+    private final byte[][] from;
+    private final byte[][] to;
+
+    // State of the current query, by vertex id: distance so far,
+    // lower bound on what's left, where it was reached from (as a
+    // position in reached), and its own position in reached.
+    private final IntLabels cost;
+    private final IntLabels bound;
+    private final IntLabels parent;
+    private final IntLabels slot;
+    private final List<Vertex<V>> reached;
+    // queued positions in reached, by distance so far plus bound
+    private final List<IntList> buckets;
+    private int expanded;
+
+    /**
+        New LandmarkSearch instance; finds landmarks right away.
+        @param g Graph to search.
+        @param k Number of landmarks, fewer if the graph doesn't
+            have that many vertices.
+        @throws IllegalArgumentException If k is negative, or if a
+            landmark is more than 254 edges from some vertex.
+    */
+    public LandmarkSearch(Graph<V, E> g, int k)
+        throws IllegalArgumentException {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative landmarks.");
+        }
+        this.graph = g;
+        this.landmarks = new ArrayList<Vertex<V>>();
+        this.cost = new IntLabels(g.ids());
+        this.bound = new IntLabels(g.ids());
+        this.parent = new IntLabels(g.ids());
+        this.slot = new IntLabels(g.ids());
+        this.reached = new ArrayList<Vertex<V>>();
+        this.buckets = new ArrayList<IntList>();
+
+        // busiest first
+        List<Vertex<V>> byDegree = new ArrayList<Vertex<V>>();
+        int[] degree = new int[g.ids()];
+        Cursor<V, E> c = g.cursor();
+        for (Vertex<V> v : g.vertices()) {
+            byDegree.add(v);
+            c.outgoing(v);
+            while (c.next()) {
+                degree[g.id(v)]++;
+            }
+        }
+        Collections.sort(byDegree, (a, b) -> Integer.compare(
+            degree[g.id(b)], degree[g.id(a)]));
+
+        List<byte[]> forward = new ArrayList<byte[]>();
+        List<byte[]> backward = new ArrayList<byte[]>();
+        for (Vertex<V> v : byDegree) {
+            if (this.landmarks.size() == k) {
+                break;
+            }
+            boolean near = false;
+            for (byte[] d : forward) {
+                near |= (d[g.id(v)] & 0xff) <= 2;
+            }
+            if (!near) {
+                this.landmarks.add(v);
+                forward.add(this.distances(v, true));
+                backward.add(this.distances(v, false));
+            }
+        }
+        this.from = forward.toArray(new byte[0][]);
+        this.to = backward.toArray(new byte[0][]);
+    }
+
+    // Breadth-first search from v along outgoing edges, or back
+    // along incoming edges.
+    private byte[] distances(Vertex<V> v, boolean outgoing) {
+        byte[] d = new byte[this.graph.ids()];
+        Arrays.fill(d, (byte) UNREACHED);
+        List<Vertex<V>> queue = new ArrayList<Vertex<V>>();
+        Cursor<V, E> c = this.graph.cursor();
+        d[this.graph.id(v)] = 0;
+        queue.add(v);
+        for (int head = 0; head < queue.size(); head++) {
+            Vertex<V> u = queue.get(head);
+            int next = (d[this.graph.id(u)] & 0xff) + 1;
+            if (outgoing) {
+                c.outgoing(u);
+            } else {
+                c.incoming(u);
+            }
+            while (c.next()) {
+                Vertex<V> w = c.other();
+                if ((d[this.graph.id(w)] & 0xff) == UNREACHED) {
+                    if (next >= UNREACHED) {
+                        throw new IllegalArgumentException("Graph too deep "
+                            + "for landmarks.");
+                    }
+                    d[this.graph.id(w)] = (byte) next;
+                    queue.add(w);
+                }
+            }
+        }
+        return d;
+    }
+
+    // Lower bound on the distance from v to t, NO_PATH if there is
+    // none.
+    private int estimate(int v, int t) {
+        int h = 0;
+        for (int i = 0; i < this.from.length; i++) {
+            int fv = this.from[i][v] & 0xff;
+            int ft = this.from[i][t] & 0xff;
+            if (fv != UNREACHED) {
+                if (ft == UNREACHED) {
+                    return NO_PATH;
+                }
+                h = Math.max(h, ft - fv);
+            }
+            int tv = this.to[i][v] & 0xff;
+            int tt = this.to[i][t] & 0xff;
+            if (tt != UNREACHED) {
+                if (tv == UNREACHED) {
+                    return NO_PATH;
+                }
+                h = Math.max(h, tv - tt);
+            }
+        }
+        return h;
+    }
+
+    /**
+        Landmarks found.
+        @return Unmodifiable list, busiest first.
+    */
+    public List<Vertex<V>> landmarks() {
+        return Collections.unmodifiableList(this.landmarks);
+    }
+
+    // Reach w at distance d from position p in reached.
+    private void reach(Vertex<V> w, int d, int p) {
+        int id = this.graph.id(w);
+        if (!this.slot.has(id)) {
+            this.slot.set(id, this.reached.size());
+            this.reached.add(w);
+        }
+        this.cost.set(id, d);
+        this.parent.set(id, p);
+        int f = d + this.bound.get(id);
+        while (this.buckets.size() <= f) {
+            this.buckets.add(new IntList());
+        }
+        this.buckets.get(f).add(this.slot.get(id));
+    }
+
+    /**
+        Shortest path between two vertices.
+        @param s Vertex where the path starts.
+        @param t Vertex where the path ends.
+        @return Vertices along the path, or null if there is none.
+        @throws IllegalArgumentException If a vertex position is
+            invalid.
+    */
+    public List<Vertex<V>> path(Vertex<V> s, Vertex<V> t)
+        throws IllegalArgumentException {
+        Graph<V, E> g = this.graph;
+        int target = g.id(t);
+        this.cost.clear();
+        this.bound.clear();
+        this.parent.clear();
+        this.slot.clear();
+        this.reached.clear();
+        for (IntList b : this.buckets) {
+            b.clear();
+        }
+        this.expanded = 0;
+
+        this.bound.set(g.id(s), this.estimate(g.id(s), target));
+        if (this.bound.get(g.id(s)) == NO_PATH) {
+            return null;
+        }
+        this.reach(s, 0, -1);
+        Cursor<V, E> c = g.cursor();
+        for (int f = 0; f < this.buckets.size(); f++) {
+            IntList bucket = this.buckets.get(f);
+            // last in, first out: among equal bounds, go deep first
+            while (bucket.size() > 0) {
+                Vertex<V> v = this.reached.get(bucket.removeLast());
+                int id = g.id(v);
+                int d = this.cost.get(id);
+                if (d + this.bound.get(id) != f) {
+                    continue; // reached again since, on a shorter way
+                }
+                this.expanded++;
+                if (v == t) {
+                    return this.collect(v);
+                }
+                c.outgoing(v);
+                while (c.next()) {
+                    Vertex<V> w = c.other();
+                    int wid = g.id(w);
+                    if (!this.bound.has(wid)) {
+                        this.bound.set(wid, this.estimate(wid, target));
+                    }
+                    if (this.bound.get(wid) != NO_PATH
+                          && (!this.cost.has(wid)
+                              || this.cost.get(wid) > d + 1)) {
+                        this.reach(w, d + 1, this.slot.get(id));
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private List<Vertex<V>> collect(Vertex<V> v) {
+        List<Vertex<V>> path = new ArrayList<Vertex<V>>();
+        for (int p = this.slot.get(this.graph.id(v)); p >= 0;
+              p = this.parent.get(this.graph.id(this.reached.get(p)))) {
+            path.add(this.reached.get(p));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+        Number of vertices expanded by the last query.
+        @return The count, a measure of how much work it took.
+    */
+    public int expanded() {
+        return this.expanded;
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 2 && args.length != 4) {
+            System.out.printf("Usage: java LandmarkSearch database "
+                + "[landmarks [actor actor]]\n");
+            System.exit(1);
+        }
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        Database db = Database.load(args[0]);
+        CompactGraph<String, String> g = db.toGraph();
+        long t = System.nanoTime();
+        LandmarkSearch<String, String> alt =
+            new LandmarkSearch<String, String>(g, k);
+        System.err.printf("%d landmarks in %.1f ms\n",
+            alt.landmarks().size(), (System.nanoTime() - t) / 1e6);
+
+        if (args.length == 4) {
+            int s = db.id(args[2]);
+            int u = db.id(args[3]);
+            if (s < 0 || u < 0) {
+                System.out.printf("Error: Can't find %s in database.\n",
+                    s < 0 ? args[2] : args[3]);
+                System.exit(1);
+            }
+            List<Vertex<String>> path = alt.path(g.vertex(s), g.vertex(u));
+            if (path == null) {
+                System.out.printf("Error: Can't connect %s to %s.\n",
+                    args[2], args[3]);
+                System.exit(1);
+            }
+            for (Vertex<String> v : path) {
+                System.out.println(v.get());
+            }
+            System.err.printf("%d vertices expanded\n", alt.expanded());
+            return;
+        }
+
+        // random pairs, against plain breadth-first search
+        LandmarkSearch<String, String> bfs =
+            new LandmarkSearch<String, String>(g, 0);
+        Random random = new Random(22);
+        int queries = 200;
+        long altExpanded = 0;
+        long bfsExpanded = 0;
+        long altTime = 0;
+        long bfsTime = 0;
+        for (int i = 0; i < queries; i++) {
+            Vertex<String> s = g.vertex(random.nextInt(db.order()));
+            Vertex<String> u = g.vertex(random.nextInt(db.order()));
+            t = System.nanoTime();
+            List<Vertex<String>> p1 = alt.path(s, u);
+            altTime += System.nanoTime() - t;
+            t = System.nanoTime();
+            List<Vertex<String>> p2 = bfs.path(s, u);
+            bfsTime += System.nanoTime() - t;
+            altExpanded += alt.expanded();
+            bfsExpanded += bfs.expanded();
+            if ((p1 == null) != (p2 == null)
+                  || p1 != null && p1.size() != p2.size()) {
+                System.out.printf("Error: Paths from %s to %s differ.\n",
+                    s.get(), u.get());
+                System.exit(1);
+            }
+        }
+        System.out.printf("landmarks: %.0f expanded, %.1f us per query\n",
+            (double) altExpanded / queries, altTime / 1e3 / queries);
+        System.out.printf("plain bfs: %.0f expanded, %.1f us per query\n",
+            (double) bfsExpanded / queries, bfsTime / 1e3 / queries);
+    }
+}
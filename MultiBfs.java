@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+    Distance histograms for many sources at once.
+
+    Breadth-first searches from up to 64 sources share a single
+    traversal (multi-source BFS, after Then et al.): every vertex
+    keeps a long whose bit i says whether source i has reached it,
+    and a level moves all those bits along each edge with a couple
+    of word operations. The graph is read once per level for the
+    whole batch instead of once per source, which is most of the
+    work of a BFS. More than 64 sources run as several batches.
+
+    Only counts are kept, no parents: for every source, how many
+    vertices are at distance 0, 1, 2, and so on.
+
+    Usage: java MultiBfs database [actor...]
+    prints the histogram and average distance of every actor
+    given, or of Bacon and the 63 actors in the most movies.
+*/
+public final class MultiBfs {
+    private final int[] sources;
+    // counts[i][d] is the number of vertices at distance d from
+    // source i
+    private final long[][] counts;
+
+    private MultiBfs(int[] s, long[][] c) {
+        this.sources = s;
+        this.counts = c;
+    }
+
+    /**
+        Run searches from all sources.
+        @param g Graph to search.
+        @param sources Vertex ids to start from.
+        @return The results, in the order of sources.
+        @throws IllegalArgumentException If a source isn't a vertex.
+    */
+    public static MultiBfs run(IntGraph g, int[] sources)
+        throws IllegalArgumentException {
+        for (int s : sources) {
+            if (s < 0 || s >= g.order()) {
+                throw new IllegalArgumentException("No vertex with id "
+                    + s + ".");
+            }
+        }
+        long[][] counts = new long[sources.length][];
+        long[] seen = new long[g.order()];
+        long[] visit = new long[g.order()];
+        long[] next = new long[g.order()];
+        for (int from = 0; from < sources.length; from += 64) {
+            int to = Math.min(from + 64, sources.length);
+            batch(g, Arrays.copyOfRange(sources, from, to), seen, visit,
+                next, counts, from);
+        }
+        return new MultiBfs(sources.clone(), counts);
+    }
+
+    // One traversal for up to 64 sources; the three arrays are
+    // scratch space, cleared here.
+    private static void batch(IntGraph g, int[] batch, long[] seen,
+          long[] visit, long[] next, long[][] counts, int offset) {
+        Arrays.fill(seen, 0);
+        Arrays.fill(visit, 0);
+        List<long[]> levels = new ArrayList<long[]>();
+        long[] level = new long[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            seen[batch[i]] |= 1L << i;
+            visit[batch[i]] |= 1L << i;
+            level[i] = 1;
+        }
+        levels.add(level);
+
+        boolean more = true;
+        while (more) {
+            // push every vertex's searches to its neighbors
+            for (int v = 0; v < g.order(); v++) {
+                long bits = visit[v];
+                if (bits == 0) {
+                    continue;
+                }
+                for (int k = g.begin(v); k < g.end(v); k++) {
+                    int w = g.target(k);
+                    next[w] |= bits & ~seen[w];
+                }
+            }
+            // keep only searches new to each vertex, and count them
+            more = false;
+            level = new long[batch.length];
+            for (int v = 0; v < g.order(); v++) {
+                long bits = next[v] & ~seen[v];
+                next[v] = 0;
+                visit[v] = bits;
+                if (bits == 0) {
+                    continue;
+                }
+                seen[v] |= bits;
+                more = true;
+                for (; bits != 0; bits &= bits - 1) {
+                    level[Long.numberOfTrailingZeros(bits)]++;
+                }
+            }
+            if (more) {
+                levels.add(level);
+            }
+        }
+
+        for (int i = 0; i < batch.length; i++) {
+            int depth = levels.size();
+            while (levels.get(depth - 1)[i] == 0) {
+                depth--;
+            }
+            long[] c = new long[depth];
+            for (int d = 0; d < depth; d++) {
+                c[d] = levels.get(d)[i];
+            }
+            counts[offset + i] = c;
+        }
+    }
+
+    /**
+        Number of sources.
+        @return How many searches ran.
+    */
+    public int size() {
+        return this.sources.length;
+    }
+
+    /**
+        Source of a search.
+        @param i Index of the search.
+        @return Vertex id it started from.
+    */
+    public int source(int i) {
+        return this.sources[i];
+    }
+
+    /**
+        Distance histogram of a search.
+        @param i Index of the search.
+        @return Number of vertices at each distance, starting with
+            the source itself at distance 0; the length is one more
+            than the largest distance.
+    */
+    public long[] histogram(int i) {
+        return this.counts[i].clone();
+    }
+
+    /**
+        Number of vertices a search reached.
+        @param i Index of the search.
+        @return Vertices with a path from the source, including it.
+    */
+    public long reached(int i) {
+        long n = 0;
+        for (long c : this.counts[i]) {
+            n += c;
+        }
+        return n;
+    }
+
+    /**
+        Average distance of a search.
+        @param i Index of the search.
+        @return Mean distance from the source to the other vertices
+            it reached, 0 if there are none.
+    */
+    public double average(int i) {
+        long n = 0;
+        long sum = 0;
+        for (int d = 1; d < this.counts[i].length; d++) {
+            n += this.counts[i][d];
+            sum += d * this.counts[i][d];
+        }
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    // Bacon and the busiest other actors, up to 64.
+    private static int[] centers(Database db) {
+        IntGraph g = db.graph();
+        IntList actors = new IntList();
+        for (int v = 0; v < g.order(); v++) {
+            if (!db.isMovie(v)) {
+                actors.add(v);
+            }
+        }
+        Integer[] order = new Integer[actors.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = actors.get(i);
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(
+            g.end(b) - g.begin(b), g.end(a) - g.begin(a)));
+
+        IntList centers = new IntList();
+        int bacon = db.id("Bacon, Kevin");
+        if (bacon >= 0) {
+            centers.add(bacon);
+        }
+        for (int i = 0; i < order.length && centers.size() < 64; i++) {
+            if (order[i] != bacon) {
+                centers.add(order[i]);
+            }
+        }
+        int[] result = new int[centers.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = centers.get(i);
+        }
+        return result;
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.printf("Usage: java MultiBfs database [actor...]\n");
+            System.exit(1);
+        }
+
+        Database db = Database.load(args[0]);
+        int[] sources;
+        if (args.length > 1) {
+            sources = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                sources[i - 1] = db.id(args[i]);
+                if (sources[i - 1] < 0 || db.isMovie(sources[i - 1])) {
+                    System.out.printf("Error: No actor named %s.\n", args[i]);
+                    System.exit(1);
+                }
+            }
+        } else {
+            sources = centers(db);
+        }
+
+        long t = System.nanoTime();
+        MultiBfs result = run(db.graph(), sources);
+        t = System.nanoTime() - t;
+
+        for (int i = 0; i < result.size(); i++) {
+            // every other step of a path is a movie, so actors are
+            // at even distances, twice their Bacon number
+            long[] h = result.histogram(i);
+            StringBuilder counts = new StringBuilder();
+            long actors = 0;
+            long sum = 0;
+            for (int d = 0; d < h.length; d += 2) {
+                counts.append(' ').append(h[d]);
+                actors += h[d];
+                sum += d / 2 * h[d];
+            }
+            System.out.printf("%s: %d actors, average %.3f, counts%s\n",
+                db.name(result.source(i)), actors,
+                actors > 1 ? (double) sum / (actors - 1) : 0.0, counts);
+        }
+        System.out.printf("%d searches in %.1f ms\n", result.size(), t / 1e6);
+    }
+}
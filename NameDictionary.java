@@ -0,0 +1,237 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+    Names numbered with dense int ids.
+
+    All names sit back to back, UTF-8 encoded, in one shared byte
+    arena; an offset table says where each id's bytes start, and
+    an open addressing hash table (keyed by Tokenizer.hash, probing
+    linearly, holding id + 1 or 0 where empty) finds the id of a
+    name. That costs a dozen or so bytes per name on top of the
+    name itself, where a String plus a HashMap entry plus a boxed
+    Integer cost around a hundred.
+
+    Names are compared and looked up as bytes and only decoded
+    into a String when somebody asks for one with name(), which
+    is typically just for printing a path.
+
+    A dictionary either grows on the heap as names are interned,
+    or wraps buffers that already hold all three tables, as in a
+    memory-mapped snapshot; the latter can't take new names.
+*/
+public final class NameDictionary {
+    private ByteBuffer bytes;
+    private IntBuffer offsets;
+    private IntBuffer table;
+    private int size;
+    private final boolean growable;
+
+    /** New empty NameDictionary instance. */
+    public NameDictionary() {
+        this.bytes = ByteBuffer.allocate(1 << 16);
+        this.offsets = IntBuffer.allocate(1024);
+        this.table = IntBuffer.allocate(1024);
+        this.size = 0;
+        this.growable = true;
+    }
+
+    private NameDictionary(ByteBuffer b, IntBuffer o, IntBuffer t) {
+        this.bytes = b;
+        this.offsets = o;
+        this.table = t;
+        this.size = o.limit() - 1;
+        this.growable = false;
+    }
+
+    /**
+        Read-only dictionary over existing tables.
+        @param bytes Arena holding all names.
+        @param offsets Start of each id's bytes, plus the end of
+            the last one.
+        @param table Hash table, a power of two in size.
+        @return The dictionary.
+    */
+    public static NameDictionary wrap(ByteBuffer bytes, IntBuffer offsets,
+          IntBuffer table) {
+        return new NameDictionary(bytes, offsets, table);
+    }
+
+    // Slot holding id of name in b[from..to), or the empty slot
+    // where it should go.
+    private int find(ByteBuffer b, int from, int to, int hash) {
+        int mask = this.table.limit() - 1;
+        int length = to - from;
+        for (int s = hash & mask;; s = (s + 1) & mask) {
+            int id = this.table.get(s) - 1;
+            if (id < 0) {
+                return s;
+            }
+            int start = this.offsets.get(id);
+            if (this.offsets.get(id + 1) - start == length
+                  && this.equal(b, from, start, length)) {
+                return s;
+            }
+        }
+    }
+
+    private boolean equal(ByteBuffer b, int from, int start, int length) {
+        for (int i = 0; i < length; i++) {
+            if (b.get(from + i) != this.bytes.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static IntBuffer grow(IntBuffer old, int capacity) {
+        IntBuffer grown = IntBuffer.allocate(capacity);
+        grown.put(old.array(), 0, old.limit());
+        return grown.clear();
+    }
+
+    private void rehash() {
+        IntBuffer t = IntBuffer.allocate(2 * this.table.limit());
+        int mask = t.limit() - 1;
+        for (int id = 0; id < this.size; id++) {
+            int s = Tokenizer.hash(this.bytes, this.offsets.get(id),
+                this.offsets.get(id + 1)) & mask;
+            while (t.get(s) != 0) {
+                s = (s + 1) & mask;
+            }
+            t.put(s, id + 1);
+        }
+        this.table = t;
+    }
+
+    /**
+        Id of a name, adding it if it's new.
+        @param b Buffer holding the name's UTF-8 bytes.
+        @param from Index of the first byte.
+        @param to Index after the last byte.
+        @param hash Tokenizer.hash of those bytes.
+        @return Id of the name; new names get the next free id.
+        @throws UnsupportedOperationException If the name is new
+            but the dictionary wraps existing tables.
+    */
+    public int intern(ByteBuffer b, int from, int to, int hash) {
+        int s = this.find(b, from, to, hash);
+        int id = this.table.get(s) - 1;
+        if (id >= 0) {
+            return id;
+        }
+        if (!this.growable) {
+            throw new UnsupportedOperationException("Can't add names to "
+                + "a wrapped NameDictionary.");
+        }
+
+        id = this.size;
+        int start = this.size == 0 ? 0 : this.offsets.get(id);
+        int length = to - from;
+        if (start + length > this.bytes.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(
+                2 * this.bytes.capacity(), start + length));
+            grown.put(this.bytes.array(), 0, start);
+            this.bytes = grown.clear();
+        }
+        if (id + 2 > this.offsets.capacity()) {
+            this.offsets = grow(this.offsets, 2 * this.offsets.capacity());
+        }
+        b.get(from, this.bytes.array(), start, length);
+        this.offsets.put(id, start);
+        this.offsets.put(id + 1, start + length);
+        this.table.put(s, id + 1);
+        this.size++;
+        if (2 * this.size > this.table.limit()) {
+            this.rehash();
+        }
+        return id;
+    }
+
+    /**
+        Id of a name, adding it if it's new.
+        @param name The name.
+        @return Id of the name; new names get the next free id.
+        @throws UnsupportedOperationException If the name is new
+            but the dictionary wraps existing tables.
+    */
+    public int intern(String name) {
+        ByteBuffer b = ByteBuffer.wrap(name.getBytes(StandardCharsets.UTF_8));
+        return this.intern(b, 0, b.limit(), Tokenizer.hash(b, 0, b.limit()));
+    }
+
+    /**
+        Id of a name from another dictionary, adding it if it's new.
+        @param other Dictionary to copy from.
+        @param id Id of the name in other.
+        @return Id of the name in this dictionary.
+        @throws UnsupportedOperationException If the name is new
+            but the dictionary wraps existing tables.
+    */
+    public int intern(NameDictionary other, int id) {
+        int from = other.offsets.get(id);
+        int to = other.offsets.get(id + 1);
+        return this.intern(other.bytes, from, to,
+            Tokenizer.hash(other.bytes, from, to));
+    }
+
+    /**
+        Id of a name.
+        @param name The name.
+        @return Its id, or -1 if it's not in the dictionary.
+    */
+    public int id(String name) {
+        ByteBuffer b = ByteBuffer.wrap(name.getBytes(StandardCharsets.UTF_8));
+        int s = this.find(b, 0, b.limit(), Tokenizer.hash(b, 0, b.limit()));
+        return this.table.get(s) - 1;
+    }
+
+    /**
+        Name of an id, decoded from the arena.
+        @param id Id from 0 to size()-1.
+        @return The name.
+    */
+    public String name(int id) {
+        int from = this.offsets.get(id);
+        byte[] b = new byte[this.offsets.get(id + 1) - from];
+        this.bytes.get(from, b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+        Number of names.
+        @return Ids range from 0 to size()-1.
+    */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+        The arena, for writing it out.
+        @return Read-only view of the bytes of all names.
+    */
+    ByteBuffer bytes() {
+        int end = this.size == 0 ? 0 : this.offsets.get(this.size);
+        return this.bytes.asReadOnlyBuffer().limit(end);
+    }
+
+    /**
+        The offset table, for writing it out.
+        @return Read-only view of size()+1 offsets.
+    */
+    IntBuffer offsets() {
+        if (this.size == 0) {
+            return IntBuffer.wrap(new int[1]).asReadOnlyBuffer();
+        }
+        return this.offsets.asReadOnlyBuffer().limit(this.size + 1);
+    }
+
+    /**
+        The hash table, for writing it out.
+        @return Read-only view of the table.
+    */
+    IntBuffer table() {
+        return this.table.asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,356 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+    Breadth-first search over a whole graph on all cores.
+
+    Goes level by level, with the frontier and the set of visited
+    vertices kept as bitsets, and every level split into ranges of
+    bitset words for the fork-join pool. Each level is expanded one
+    of two ways, whichever touches fewer edges (Beamer's direction
+    optimization):
+
+        top-down   every frontier vertex marks its unvisited
+                   neighbors in the next frontier; best while the
+                   frontier is small
+        bottom-up  every unvisited vertex looks for a neighbor in
+                   the frontier and stops at the first one; best
+                   once the frontier holds a good part of the graph,
+                   since most vertices then find one right away
+
+    Bottom-up steps walk adjacencies backwards, so the graph must be
+    symmetric, like the movie graph of a Database.
+
+    The parent of a vertex is always its first neighbor, in
+    adjacency order, one level closer to the root, no matter how
+    many threads ran or which way a level went; so results are the
+    same on every run, though not necessarily the parents a plain
+    sequential BFS picks.
+
+    Usage: java ParallelBfs database [runs]
+    times a full sweep from Kevin Bacon, sequential against
+    parallel, and checks that both agree.
+*/
+public final class ParallelBfs {
+    // Go bottom-up once the frontier has more than 1/ALPHA of the
+    // unexplored edges, back top-down when it holds less than
+    // 1/BETA of the vertices.
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    // Bitset words per leaf task, 64 vertices each.
+    private static final int GRAIN = 64;
+
+    private static final int TOP_DOWN = 0;
+    private static final int BOTTOM_UP = 1;
+    private static final int FINISH = 2;
+
+    private final IntGraph graph;
+    private final int[] distance;
+    private final int[] parent;
+    private final int n;
+    private long[] visited;
+    private long[] frontier;
+    private long[] fresh;
+    private final AtomicLongArray next;
+    private int level;
+    private boolean topDown;
+
+    private ParallelBfs(IntGraph g, int[] d, int[] p) {
+        this.graph = g;
+        this.distance = d;
+        this.parent = p;
+        this.n = g.order();
+        int words = (this.n + 63) >>> 6;
+        this.visited = new long[words];
+        this.frontier = new long[words];
+        this.fresh = new long[words];
+        this.next = new AtomicLongArray(words);
+    }
+
+    private boolean inFrontier(int v) {
+        return (this.frontier[v >>> 6] & (1L << v)) != 0;
+    }
+
+    private int degree(int v) {
+        return this.graph.end(v) - this.graph.begin(v);
+    }
+
+    // First neighbor of v in the frontier, or -1.
+    private int firstInFrontier(int v) {
+        for (int k = this.graph.begin(v); k < this.graph.end(v); k++) {
+            int w = this.graph.target(k);
+            if (this.inFrontier(w)) {
+                return w;
+            }
+        }
+        return -1;
+    }
+
+    // One kind of pass over bitset words lo..hi-1; FINISH passes
+    // return how many vertices the new frontier holds and the sum
+    // of their degrees.
+    private final class Step extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int kind;
+        private final int lo;
+        private final int hi;
+
+        Step(int k, int l, int h) {
+            this.kind = k;
+            this.lo = l;
+            this.hi = h;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (this.hi - this.lo > GRAIN) {
+                int mid = (this.lo + this.hi) >>> 1;
+                Step left = new Step(this.kind, this.lo, mid);
+                left.fork();
+                long[] right = new Step(this.kind, mid, this.hi).compute();
+                long[] sums = left.join();
+                sums[0] += right[0];
+                sums[1] += right[1];
+                return sums;
+            }
+            long[] sums = new long[2];
+            for (int i = this.lo; i < this.hi; i++) {
+                if (this.kind == TOP_DOWN) {
+                    this.topDown(i);
+                } else if (this.kind == BOTTOM_UP) {
+                    this.bottomUp(i);
+                } else {
+                    this.finish(i, sums);
+                }
+            }
+            return sums;
+        }
+
+        private void topDown(int i) {
+            ParallelBfs b = ParallelBfs.this;
+            for (long f = b.frontier[i]; f != 0; f &= f - 1) {
+                int v = (i << 6) + Long.numberOfTrailingZeros(f);
+                for (int k = b.graph.begin(v); k < b.graph.end(v); k++) {
+                    int w = b.graph.target(k);
+                    int j = w >>> 6;
+                    long bit = 1L << w;
+                    if ((b.visited[j] & bit) == 0
+                          && (b.next.get(j) & bit) == 0) {
+                        b.next.getAndAccumulate(j, bit, (x, y) -> x | y);
+                    }
+                }
+            }
+        }
+
+        private void bottomUp(int i) {
+            ParallelBfs b = ParallelBfs.this;
+            long bits = 0;
+            for (long u = ~b.visited[i]; u != 0; u &= u - 1) {
+                int v = (i << 6) + Long.numberOfTrailingZeros(u);
+                if (v >= b.n) {
+                    break;
+                }
+                int w = b.firstInFrontier(v);
+                if (w >= 0) {
+                    bits |= 1L << v;
+                    b.distance[v] = b.level + 1;
+                    b.parent[v] = w;
+                }
+            }
+            // this task owns word i, no need to be atomic
+            b.next.set(i, bits);
+        }
+
+        private void finish(int i, long[] sums) {
+            ParallelBfs b = ParallelBfs.this;
+            long f = b.next.get(i);
+            b.next.set(i, 0);
+            b.fresh[i] = f;
+            b.visited[i] |= f;
+            sums[0] += Long.bitCount(f);
+            for (; f != 0; f &= f - 1) {
+                int v = (i << 6) + Long.numberOfTrailingZeros(f);
+                sums[1] += b.degree(v);
+                if (b.topDown) {
+                    b.distance[v] = b.level + 1;
+                    b.parent[v] = b.firstInFrontier(v);
+                }
+            }
+        }
+    }
+
+    private void run(int root, ForkJoinPool pool) {
+        int words = this.visited.length;
+        long edges = 0;
+        for (int v = 0; v < this.n; v++) {
+            edges += this.degree(v);
+        }
+        this.frontier[root >>> 6] |= 1L << root;
+        this.visited[root >>> 6] |= 1L << root;
+        this.distance[root] = 0;
+        this.parent[root] = -1;
+        long size = 1;
+        long frontierEdges = this.degree(root);
+        long unexplored = edges - frontierEdges;
+        this.topDown = true;
+        this.level = 0;
+
+        while (size > 0) {
+            if (this.topDown && frontierEdges > unexplored / ALPHA) {
+                this.topDown = false;
+            } else if (!this.topDown && size < this.n / BETA) {
+                this.topDown = true;
+            }
+            pool.invoke(new Step(this.topDown ? TOP_DOWN : BOTTOM_UP, 0,
+                words));
+            long[] sums = pool.invoke(new Step(FINISH, 0, words));
+            size = sums[0];
+            frontierEdges = sums[1];
+            unexplored -= frontierEdges;
+
+            long[] t = this.frontier;
+            this.frontier = this.fresh;
+            this.fresh = t;
+            this.level++;
+        }
+    }
+
+    /**
+        Search from root on the common fork-join pool.
+        @param g Symmetric graph to search.
+        @param root Vertex id to start from.
+        @param distance Filled with the distance of every vertex
+            from root, -1 where there is no path.
+        @param parent Filled with the parent of every vertex, -1
+            for root and where there is no path.
+        @throws IllegalArgumentException If root isn't a vertex or
+            an array is shorter than g.order().
+    */
+    public static void search(IntGraph g, int root, int[] distance,
+          int[] parent) throws IllegalArgumentException {
+        search(g, root, distance, parent, ForkJoinPool.commonPool());
+    }
+
+    /**
+        Search from root on a given fork-join pool.
+        @param g Symmetric graph to search.
+        @param root Vertex id to start from.
+        @param distance Filled with the distance of every vertex
+            from root, -1 where there is no path.
+        @param parent Filled with the parent of every vertex, -1
+            for root and where there is no path.
+        @param pool Pool to run on.
+        @throws IllegalArgumentException If root isn't a vertex or
+            an array is shorter than g.order().
+    */
+    public static void search(IntGraph g, int root, int[] distance,
+          int[] parent, ForkJoinPool pool) throws IllegalArgumentException {
+        check(g, root, distance, parent);
+        Arrays.fill(distance, 0, g.order(), -1);
+        Arrays.fill(parent, 0, g.order(), -1);
+        new ParallelBfs(g, distance, parent).run(root, pool);
+    }
+
+    /**
+        Same search with a plain queue on the calling thread.
+        @param g Graph to search.
+        @param root Vertex id to start from.
+        @param distance Filled with distances, as for search().
+        @param parent Filled with parents in the order a queue
+            reaches them.
+        @throws IllegalArgumentException If root isn't a vertex or
+            an array is shorter than g.order().
+    */
+    public static void sequential(IntGraph g, int root, int[] distance,
+          int[] parent) throws IllegalArgumentException {
+        check(g, root, distance, parent);
+        Arrays.fill(distance, 0, g.order(), -1);
+        Arrays.fill(parent, 0, g.order(), -1);
+
+        // the queue is just the order in which vertices are reached
+        int[] queue = new int[g.order()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        distance[root] = 0;
+        while (head < tail) {
+            int v = queue[head++];
+            for (int k = g.begin(v); k < g.end(v); k++) {
+                int w = g.target(k);
+                if (distance[w] < 0) {
+                    distance[w] = distance[v] + 1;
+                    parent[w] = v;
+                    queue[tail++] = w;
+                }
+            }
+        }
+    }
+
+    private static void check(IntGraph g, int root, int[] distance,
+          int[] parent) throws IllegalArgumentException {
+        if (root < 0 || root >= g.order()) {
+            throw new IllegalArgumentException("No vertex with id "
+                + root + ".");
+        }
+        if (distance.length < g.order() || parent.length < g.order()) {
+            throw new IllegalArgumentException("Arrays too short for "
+                + "graph.");
+        }
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1 && args.length != 2) {
+            System.out.printf("Usage: java ParallelBfs database [runs]\n");
+            System.exit(1);
+        }
+        int runs = args.length == 2 ? Integer.parseInt(args[1]) : 5;
+
+        Database db = Database.load(args[0]);
+        IntGraph g = db.graph();
+        int root = Math.max(db.id("Bacon, Kevin"), 0);
+        if (g.order() == 0) {
+            System.out.printf("Error: Empty database.\n");
+            System.exit(1);
+        }
+        int[] d1 = new int[g.order()];
+        int[] p1 = new int[g.order()];
+        int[] d2 = new int[g.order()];
+        int[] p2 = new int[g.order()];
+
+        long seq = Long.MAX_VALUE;
+        long par = Long.MAX_VALUE;
+        for (int r = 0; r < runs; r++) {
+            long t = System.nanoTime();
+            sequential(g, root, d1, p1);
+            seq = Math.min(seq, System.nanoTime() - t);
+            t = System.nanoTime();
+            search(g, root, d2, p2);
+            par = Math.min(par, System.nanoTime() - t);
+        }
+
+        int wrong = 0;
+        for (int v = 0; v < g.order(); v++) {
+            int p = p2[v];
+            if (d1[v] != d2[v] || p >= 0 && d2[p] != d2[v] - 1) {
+                wrong++;
+            }
+        }
+        System.out.printf("%d vertices, sequential %.1f ms, parallel %.1f ms "
+            + "on %d threads, %.1fx\n", g.order(), seq / 1e6, par / 1e6,
+            ForkJoinPool.commonPool().getParallelism(),
+            (double) seq / par);
+        if (wrong > 0) {
+            System.out.printf("Error: %d vertices differ.\n", wrong);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+    Parse a database text file on all cores.
+
+    Movie lines don't depend on each other, so the file is cut
+    into byte ranges that end right after a newline, and each
+    range is mapped and run through Tokenizer on the common
+    fork-join pool into its own names and credits, with ids local
+    to the range. Merging the ranges in
+    file order then hands out global ids in order of first
+    appearance, which makes the result exactly what the
+    sequential Database.parse would produce.
+
+    Streams that can't be mapped (gzipped files, standard input)
+    go through the same steps as a pipeline: ranges are cut from
+    the stream as it arrives, typically from an InputPipe that
+    decompresses on a thread of its own, and handed to the pool,
+    and the oldest ones are merged while later ones are still
+    being read and parsed. Only a few ranges are in flight at a
+    time, so memory stays bounded however long the stream is.
+*/
+public final class ParallelParser {
+    // Ranges are about this long; must stay below 2GB to map.
+    private static final int CHUNK = 8 << 20;
+
+    // Shut up checkstyle.
+    private ParallelParser() {}
+
+    // Names and credits of one range, with local ids.
+    private static final class Chunk {
+        private final NameDictionary names = new NameDictionary();
+        private final BitSet isMovie = new BitSet();
+        private final IntList movies = new IntList();
+        private final IntList actors = new IntList();
+    }
+
+    // Names and credits of the lines in a buffer.
+    private static Chunk tokenize(ByteBuffer b) {
+        Chunk chunk = new Chunk();
+        Tokenizer.parse(b, 0, b.limit(), chunk.names, chunk.isMovie,
+            chunk.movies, chunk.actors);
+        return chunk;
+    }
+
+    // Parse bytes from..to-1 of a file.
+    private static final class Parse extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+
+        Parse(FileChannel c, long f, long t) {
+            this.channel = c;
+            this.from = f;
+            this.to = t;
+        }
+
+        @Override
+        protected Chunk compute() {
+            ByteBuffer b;
+            try {
+                b = this.channel.map(FileChannel.MapMode.READ_ONLY,
+                    this.from, this.to - this.from);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return tokenize(b);
+        }
+    }
+
+    // Parse lines cut from a stream.
+    private static final class Lines extends RecursiveTask<Chunk> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] bytes;
+        private final int length;
+
+        Lines(byte[] b, int n) {
+            this.bytes = b;
+            this.length = n;
+        }
+
+        @Override
+        protected Chunk compute() {
+            return tokenize(ByteBuffer.wrap(this.bytes, 0, this.length));
+        }
+    }
+
+    /**
+        Parse database text file.
+        @param file Database file.
+        @return The database.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static Database parse(Path file) throws IOException {
+        return parse(file, CHUNK);
+    }
+
+    /**
+        Parse database text file in ranges of given length.
+        @param file Database file.
+        @param chunk Approximate length of a range in bytes.
+        @return The database.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static Database parse(Path file, int chunk) throws IOException {
+        List<Parse> tasks = new ArrayList<>();
+        try (FileChannel c = FileChannel.open(file)) {
+            long size = c.size();
+            long from = 0;
+            while (from < size) {
+                long to = Tokenizer.align(c, Math.min(from + chunk, size) - 1,
+                    size);
+                tasks.add(new Parse(c, from, to));
+                from = to;
+            }
+            for (Parse task : tasks) {
+                task.fork();
+            }
+
+            // merge in file order, so global ids come out in order of
+            // first appearance; later ranges are still being parsed
+            // while earlier ones are merged
+            try {
+                Merge merge = new Merge();
+                for (Parse task : tasks) {
+                    merge.add(task.join());
+                }
+                return merge.finish();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+        Parse database text from a stream.
+        @param in Stream of database text, say from InputPipe.open.
+        @return The database.
+        @throws IOException If the stream cannot be read properly.
+    */
+    public static Database parse(InputStream in) throws IOException {
+        return parse(in, CHUNK);
+    }
+
+    /**
+        Parse database text from a stream in ranges of given length.
+        @param in Stream of database text.
+        @param chunk Approximate length of a range in bytes; a range
+            grows past it for a line that doesn't fit.
+        @return The database.
+        @throws IOException If the stream cannot be read properly.
+    */
+    public static Database parse(InputStream in, int chunk)
+        throws IOException {
+        int window = 2 * ForkJoinPool.getCommonPoolParallelism() + 1;
+        Deque<Lines> pending = new ArrayDeque<>();
+        Merge merge = new Merge();
+        byte[] rest = new byte[0];
+        boolean end = false;
+        while (!end) {
+            // whatever was left after the last newline, then more
+            byte[] b = Arrays.copyOf(rest, rest.length + chunk);
+            int n = rest.length + in.readNBytes(b, rest.length, chunk);
+            end = n < b.length;
+            int cut = n;
+            if (!end) {
+                while (cut > 0 && b[cut - 1] != '\n') {
+                    cut--;
+                }
+            }
+            if (cut == 0 && !end) {
+                rest = Arrays.copyOf(b, n); // line longer than a range
+                continue;
+            }
+            rest = Arrays.copyOfRange(b, cut, n);
+            if (cut > 0) {
+                Lines task = new Lines(b, cut);
+                task.fork();
+                pending.add(task);
+            }
+
+            // merge the oldest ranges while later ones are parsed
+            while (pending.size() > window) {
+                merge.add(pending.remove().join());
+            }
+        }
+        while (!pending.isEmpty()) {
+            merge.add(pending.remove().join());
+        }
+        return merge.finish();
+    }
+
+    // Ranges merged in order, local ids mapped to global ones.
+    private static final class Merge {
+        private final NameDictionary names = new NameDictionary();
+        private final BitSet isMovie = new BitSet();
+        private final IntList movies = new IntList();
+        private final IntList actors = new IntList();
+
+        void add(Chunk part) {
+            int[] global = new int[part.names.size()];
+            for (int i = 0; i < global.length; i++) {
+                global[i] = this.names.intern(part.names, i);
+                if (part.isMovie.get(i)) {
+                    this.isMovie.set(global[i]);
+                }
+            }
+            for (int i = 0; i < part.movies.size(); i++) {
+                this.movies.add(global[part.movies.get(i)]);
+                this.actors.add(global[part.actors.get(i)]);
+            }
+        }
+
+        Database finish() {
+            return new Database(ArrayGraph.symmetric(this.names.size(),
+                this.movies, this.actors), this.names, this.isMovie);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.Arrays;
+
+/**
+    Shortest paths in an IntGraph, one query at a time.
+
+    All traversal state lives in this object instead of in graph
+    labels, so any number of PathSearch instances can work on the
+    same graph at once as long as nobody changes it. A single
+    instance is not thread-safe; give each thread its own.
+
+    Searches run from both ends, always expanding the smaller
+    frontier, just like Kevin's --bidirectional mode. The search
+    from the target follows adjacencies forwards as well, so the
+    graph must be symmetric (every edge has a reverse edge), which
+    the movie graph is.
+*/
+public final class PathSearch {
+    private static final int SOURCE = 0;
+    private static final int TARGET = 1;
+
+    private final IntGraph graph;
+
+    // side of the search that reached v in the current query,
+    // cleared in O(1) per query; parent[v] is where it was reached
+    // from (-1 for the two ends), valid wherever side is set.
+    private final IntLabels reached;
+    private final int[] parent;
+
+    // Queues of both searches; each vertex is added at most once.
+    private int[][] queue;
+    private int[] head;
+    private int[] tail;
+
+    // Vertices reached by the last query.
+    private int touched;
+
+    /**
+        New PathSearch instance.
+        @param g Symmetric graph to search.
+    */
+    public PathSearch(IntGraph g) {
+        this.graph = g;
+        this.reached = new IntLabels(g.order());
+        this.parent = new int[g.order()];
+        this.queue = new int[][] {new int[16], new int[16]};
+        this.head = new int[2];
+        this.tail = new int[2];
+    }
+
+    private void reach(int v, int side, int from) {
+        this.reached.set(v, side);
+        this.parent[v] = from;
+        if (this.tail[side] == this.queue[side].length) {
+            this.queue[side] = Arrays.copyOf(this.queue[side],
+                2 * this.tail[side]);
+        }
+        this.queue[side][this.tail[side]++] = v;
+        this.touched++;
+    }
+
+    // Expand one level of a search. Returns the vertex of that
+    // search adjacent to the other search, or -1 if they didn't
+    // meet; in that case the next level is queued.
+    private int expand(int side, int[] meeting) {
+        int[] q = this.queue[side];
+        int stop = this.tail[side];
+        while (this.head[side] < stop) {
+            int v = q[this.head[side]++];
+            for (int k = this.graph.begin(v); k < this.graph.end(v); k++) {
+                int w = this.graph.target(k);
+                int m = this.reached.get(w);
+                if (m < 0) {
+                    this.reach(w, side, v);
+                } else if (m != side) {
+                    meeting[0] = w;
+                    return v;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+        Find a shortest path.
+        @param source Vertex id where the path starts.
+        @param target Vertex id where the path ends.
+        @return Vertex ids along the path, starting with source and
+            ending with target, or null if there is no path.
+    */
+    public int[] path(int source, int target) {
+        this.reached.clear();
+        this.head[SOURCE] = this.tail[SOURCE] = 0;
+        this.head[TARGET] = this.tail[TARGET] = 0;
+        this.touched = 0;
+
+        this.reach(source, SOURCE, -1);
+        if (source == target) {
+            return new int[] {source};
+        }
+        this.reach(target, TARGET, -1);
+
+        // last vertex of the source's half, first of the target's
+        int near = -1;
+        int[] far = new int[1];
+        while (near < 0 && this.head[SOURCE] < this.tail[SOURCE]
+              && this.head[TARGET] < this.tail[TARGET]) {
+            int s = this.tail[SOURCE] - this.head[SOURCE];
+            int t = this.tail[TARGET] - this.head[TARGET];
+            if (s <= t) {
+                near = this.expand(SOURCE, far);
+            } else {
+                int v = this.expand(TARGET, far);
+                if (v >= 0) {
+                    near = far[0];
+                    far[0] = v;
+                }
+            }
+        }
+        if (near < 0) {
+            return null;
+        }
+
+        // source's half runs backwards from near, target's half
+        // forwards from far
+        int half = 0;
+        for (int v = near; v >= 0; v = this.parent[v]) {
+            half++;
+        }
+        int length = half;
+        for (int v = far[0]; v >= 0; v = this.parent[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        int i = half;
+        for (int v = near; v >= 0; v = this.parent[v]) {
+            path[--i] = v;
+        }
+        i = half;
+        for (int v = far[0]; v >= 0; v = this.parent[v]) {
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    /**
+        Number of vertices reached by the last query.
+        @return The count, a measure of how much work it took.
+    */
+    public int touched() {
+        return this.touched;
+    }
+}
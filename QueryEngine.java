@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+    Shortest-path queries on many threads over one Database.
+
+    A Database never changes after loading, so the graph is shared
+    by all queries as it is. Everything a query writes goes into a
+    PathSearch, and those are pooled: a query borrows one, runs,
+    and gives it back, so there are only ever as many of them (and
+    their per-vertex arrays) as queries running at the same time,
+    and nothing is allocated per query beyond the path itself.
+
+    The components of the graph are labeled when the engine is
+    made, so a query between two vertices that aren't connected is
+    answered in constant time, without a search; otherwise it
+    would look through everything reachable from one of them.
+
+    Single queries can come from any number of threads; batches
+    are spread over the engine's own worker threads. Those are
+    made by the first batch, so an engine that only answers single
+    queries (like BaconServer's) has no threads of its own.
+
+    Usage: java QueryEngine database [queries] [threads]
+    runs a batch of random queries between actors, single-threaded
+    and then in parallel, checks that both agree, and prints the
+    throughput of each.
+*/
+public final class QueryEngine implements AutoCloseable {
+    // Queries a worker takes from a batch at a time.
+    private static final int BLOCK = 256;
+
+    private final Database database;
+    private final Components components;
+    private final ConcurrentLinkedDeque<PathSearch> pool;
+    // searches actually run, for telling how many were spared
+    private final AtomicLong searches;
+    private final int threads;
+    // made by the first batch
+    private ExecutorService workers;
+
+    /**
+        New QueryEngine instance with a worker per core.
+        @param db Database to query.
+    */
+    public QueryEngine(Database db) {
+        this(db, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+        New QueryEngine instance.
+        @param db Database to query.
+        @param n Number of worker threads for batches.
+        @throws IllegalArgumentException If n is less than one.
+    */
+    public QueryEngine(Database db, int n) throws IllegalArgumentException {
+        if (n < 1) {
+            throw new IllegalArgumentException("Need at least one thread.");
+        }
+        this.database = db;
+        this.components = db.components();
+        this.pool = new ConcurrentLinkedDeque<PathSearch>();
+        this.searches = new AtomicLong();
+        this.threads = n;
+    }
+
+    /**
+        Database being queried.
+        @return The database.
+    */
+    public Database database() {
+        return this.database;
+    }
+
+    /**
+        Number of searches run so far; queries between vertices
+        that aren't connected don't count.
+        @return The number of searches.
+    */
+    public long searches() {
+        return this.searches.get();
+    }
+
+    private PathSearch borrow() {
+        PathSearch search = this.pool.pollFirst();
+        return search != null ? search : new PathSearch(this.database.graph());
+    }
+
+    private void giveBack(PathSearch search) {
+        this.pool.offerFirst(search);
+    }
+
+    private synchronized ExecutorService workers() {
+        if (this.workers == null) {
+            this.workers = Executors.newFixedThreadPool(this.threads, r -> {
+                Thread t = new Thread(r, "QueryEngine");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return this.workers;
+    }
+
+    /**
+        Find a shortest path; safe to call from any thread.
+        @param source Vertex id where the path starts.
+        @param target Vertex id where the path ends.
+        @return Vertex ids along the path, or null if there is none.
+    */
+    public int[] path(int source, int target) {
+        if (!this.components.connected(source, target)) {
+            return null;
+        }
+        this.searches.incrementAndGet();
+        PathSearch search = this.borrow();
+        try {
+            return search.path(source, target);
+        } finally {
+            this.giveBack(search);
+        }
+    }
+
+    /**
+        Find shortest paths for a batch of queries in parallel.
+        @param sources Vertex id where each path starts.
+        @param targets Vertex id where each path ends.
+        @return Path for each query, null where there is none.
+        @throws IllegalArgumentException If the arrays differ in
+            length.
+        @throws InterruptedException If interrupted while waiting.
+    */
+    public int[][] paths(int[] sources, int[] targets)
+        throws IllegalArgumentException, InterruptedException {
+        if (sources.length != targets.length) {
+            throw new IllegalArgumentException("Need as many targets as "
+                + "sources.");
+        }
+        int[][] result = new int[sources.length][];
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> running = new ArrayList<Future<?>>();
+        ExecutorService w = this.workers();
+        for (int t = 0; t < this.threads; t++) {
+            running.add(w.submit(() -> {
+                PathSearch search = this.borrow();
+                long ran = 0;
+                try {
+                    int from;
+                    while ((from = next.getAndAdd(BLOCK)) < result.length) {
+                        int to = Math.min(from + BLOCK, result.length);
+                        for (int i = from; i < to; i++) {
+                            if (this.components.connected(sources[i],
+                                  targets[i])) {
+                                result[i] = search.path(sources[i],
+                                    targets[i]);
+                                ran++;
+                            }
+                        }
+                    }
+                } finally {
+                    this.searches.addAndGet(ran);
+                    this.giveBack(search);
+                }
+            }));
+        }
+        try {
+            for (Future<?> f : running) {
+                f.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        return result;
+    }
+
+    /** Stop the worker threads, if there are any. */
+    @Override
+    public synchronized void close() {
+        if (this.workers != null) {
+            this.workers.shutdown();
+        }
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+        @throws InterruptedException If interrupted while waiting.
+    */
+    public static void main(String[] args)
+        throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 3) {
+            System.out.printf("Usage: java QueryEngine database [queries] "
+                + "[threads]\n");
+            System.exit(1);
+        }
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+            : Runtime.getRuntime().availableProcessors();
+
+        Database db = Database.load(args[0]);
+        IntList actors = new IntList();
+        for (int v = 0; v < db.order(); v++) {
+            if (!db.isMovie(v)) {
+                actors.add(v);
+            }
+        }
+        if (actors.size() == 0) {
+            System.out.printf("Error: No actors in database.\n");
+            System.exit(1);
+        }
+
+        Random random = new Random(226);
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = actors.get(random.nextInt(actors.size()));
+            targets[i] = actors.get(random.nextInt(actors.size()));
+        }
+
+        try (QueryEngine one = new QueryEngine(db, 1);
+             QueryEngine many = new QueryEngine(db, threads)) {
+            long t = System.nanoTime();
+            int[][] expected = one.paths(sources, targets);
+            double single = (System.nanoTime() - t) / 1e9;
+            t = System.nanoTime();
+            int[][] actual = many.paths(sources, targets);
+            double parallel = (System.nanoTime() - t) / 1e9;
+
+            int wrong = 0;
+            for (int i = 0; i < queries; i++) {
+                if (!Arrays.equals(expected[i], actual[i])) {
+                    wrong++;
+                }
+            }
+            System.out.printf("%d queries, 1 thread: %.0f/s, %d threads: "
+                + "%.0f/s, %.1fx\n", queries, queries / single, threads,
+                queries / parallel, single / parallel);
+            if (wrong > 0) {
+                System.out.printf("Error: %d answers differ.\n", wrong);
+                System.exit(1);
+            }
+        }
+    }
+}
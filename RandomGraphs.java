@@ -0,0 +1,38 @@
+import java.util.Random;
+
+/**
+    Random graphs for tests.
+
+    Several tests check a search or an index against a plain
+    breadth-first search on graphs nobody picked by hand; they all
+    make them here, so the same seed gives the same graph
+    everywhere.
+*/
+public final class RandomGraphs {
+    // Shut up checkstyle.
+    private RandomGraphs() {}
+
+    /**
+        Random symmetric graph; loops are left out, so there may be
+        fewer edges than asked for, and some pairs may be linked
+        twice.
+        @param n Number of vertices.
+        @param m Number of edges to try.
+        @param seed Seed for the random numbers.
+        @return The graph.
+    */
+    public static IntGraph symmetric(int n, int m, long seed) {
+        Random random = new Random(seed);
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int i = 0; i < m; i++) {
+            int a = random.nextInt(n);
+            int b = random.nextInt(n);
+            if (a != b) {
+                from.add(a);
+                to.add(b);
+            }
+        }
+        return ArrayGraph.symmetric(n, from, to);
+    }
+}
@@ -0,0 +1,386 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+    All shortest paths between two vertices, and the next best.
+
+    A breadth-first search from the source, stopped as soon as the
+    level of the target is reached, leaves the distance of every
+    vertex up to there. Together these make a DAG of shortest
+    paths: every neighbor one step closer to the source is a parent,
+    not just the one a search happened to find first. The same pass
+    counts the shortest paths to each vertex (the sum of the counts
+    of its parents), so count() costs nothing extra.
+
+    Paths are never all made at once; there may be billions of
+    them. all() walks the DAG back from the target like an odometer
+    and makes one path per call to next(). alternatives() goes on
+    past the shortest paths to longer ones, in order of length,
+    each without repeated vertices (Yen's algorithm); every path
+    after the shortest costs a search per vertex of the one before,
+    so it is meant for a handful of paths, not thousands.
+
+    The graph must be symmetric, like the movie graph of a Database.
+
+    Usage: java ShortestPaths [--alternatives] database actor [k]
+    prints how many shortest paths connect actor to Bacon, then the
+    first k of them (10 by default), or with --alternatives the k
+    shortest paths whether or not they are as short as possible.
+*/
+public final class ShortestPaths {
+    private final IntGraph graph;
+    private final int target;
+    // distance from source, for everything up to the target's level
+    private final IntLabels level;
+    private final long count;
+
+    /**
+        New ShortestPaths instance; searches right away.
+        @param g Symmetric graph to search.
+        @param s Vertex id where paths start.
+        @param t Vertex id where paths end.
+        @throws IllegalArgumentException If s or t isn't a vertex.
+    */
+    public ShortestPaths(IntGraph g, int s, int t)
+        throws IllegalArgumentException {
+        if (s < 0 || s >= g.order() || t < 0 || t >= g.order()) {
+            throw new IllegalArgumentException("No such vertex.");
+        }
+        this.graph = g;
+        this.target = t;
+        this.level = new IntLabels(g.order());
+
+        // count[v] is the number of shortest paths from s to v,
+        // Long.MAX_VALUE if more
+        long[] counts = new long[g.order()];
+        int[] queue = new int[g.order()];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = s;
+        this.level.set(s, 0);
+        counts[s] = 1;
+        while (head < tail) {
+            int v = queue[head++];
+            int d = this.level.get(v);
+            if (this.level.has(t) && d >= this.level.get(t)) {
+                break;
+            }
+            for (int k = g.begin(v); k < g.end(v); k++) {
+                int w = g.target(k);
+                if (!this.level.has(w)) {
+                    this.level.set(w, d + 1);
+                    queue[tail++] = w;
+                }
+                if (this.level.get(w) == d + 1) {
+                    counts[w] = counts[w] > Long.MAX_VALUE - counts[v]
+                        ? Long.MAX_VALUE : counts[w] + counts[v];
+                }
+            }
+        }
+        this.count = counts[t];
+    }
+
+    /**
+        Length of the shortest paths.
+        @return Number of edges, -1 if there is no path.
+    */
+    public int distance() {
+        return this.level.get(this.target);
+    }
+
+    /**
+        Number of shortest paths.
+        @return The count, 0 if there is no path, Long.MAX_VALUE if
+            there are at least that many.
+    */
+    public long count() {
+        return this.count;
+    }
+
+    // Adjacency index of the first parent of v at or after k, or -1.
+    private int parent(int v, int k) {
+        int d = this.level.get(v) - 1;
+        for (; k < this.graph.end(v); k++) {
+            if (this.level.get(this.graph.target(k)) == d) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+        Every shortest path, one at a time.
+        @return Iterator over vertex ids along each path, from the
+            source to the target; empty if there is no path.
+    */
+    public Iterator<int[]> all() {
+        return new AllPaths();
+    }
+
+    /**
+        Shortest paths without repeated vertices, in order of
+        length: all shortest paths first, then longer ones.
+        @return Iterator over vertex ids along each path, from the
+            source to the target; empty if there is no path.
+    */
+    public Iterator<int[]> alternatives() {
+        return new Alternatives();
+    }
+
+    // Walks the DAG back from the target; path[i] is at distance
+    // i, reached through adjacency index edge[i] of path[i + 1].
+    private final class AllPaths implements Iterator<int[]> {
+        private final int[] path;
+        private final int[] edge;
+        private boolean done;
+
+        AllPaths() {
+            int d = ShortestPaths.this.distance();
+            this.done = d < 0;
+            this.path = new int[Math.max(d + 1, 0)];
+            this.edge = new int[Math.max(d, 0)];
+            if (!this.done) {
+                this.path[d] = ShortestPaths.this.target;
+                this.descend(d - 1);
+            }
+        }
+
+        // First parents all the way down from level i.
+        private void descend(int i) {
+            IntGraph g = ShortestPaths.this.graph;
+            for (; i >= 0; i--) {
+                int v = this.path[i + 1];
+                this.edge[i] = ShortestPaths.this.parent(v, g.begin(v));
+                this.path[i] = g.target(this.edge[i]);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.done;
+        }
+
+        @Override
+        public int[] next() {
+            if (this.done) {
+                throw new NoSuchElementException("No more paths.");
+            }
+            int[] result = this.path.clone();
+            // next parent at the lowest level that has one
+            this.done = true;
+            for (int i = 0; i < this.edge.length && this.done; i++) {
+                int k = ShortestPaths.this.parent(this.path[i + 1],
+                    this.edge[i] + 1);
+                if (k >= 0) {
+                    this.edge[i] = k;
+                    this.path[i] = ShortestPaths.this.graph.target(k);
+                    this.descend(i - 1);
+                    this.done = false;
+                }
+            }
+            return result;
+        }
+    }
+
+    // A path as a set element.
+    private static final class Path implements Comparable<Path> {
+        private final int[] vertices;
+
+        Path(int[] v) {
+            this.vertices = v;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Path
+                && Arrays.equals(this.vertices, ((Path) o).vertices);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(this.vertices);
+        }
+
+        @Override
+        public int compareTo(Path o) {
+            if (this.vertices.length != o.vertices.length) {
+                return this.vertices.length - o.vertices.length;
+            }
+            return Arrays.compare(this.vertices, o.vertices);
+        }
+    }
+
+    // Yen's algorithm: each path deviates from one found before at
+    // some spur vertex, after which it takes the shortest way to
+    // the target that avoids the vertices before the spur and the
+    // edges other found paths with the same beginning took.
+    private final class Alternatives implements Iterator<int[]> {
+        private final List<int[]> found;
+        private final PriorityQueue<Path> candidates;
+        private final Set<Path> seen;
+        private final IntLabels parents;
+        private final IntLabels banned;
+        private int[] next;
+
+        Alternatives() {
+            int n = ShortestPaths.this.graph.order();
+            this.found = new ArrayList<int[]>();
+            this.candidates = new PriorityQueue<Path>();
+            this.seen = new HashSet<Path>();
+            this.parents = new IntLabels(n);
+            this.banned = new IntLabels(n);
+            Iterator<int[]> shortest = ShortestPaths.this.all();
+            this.next = shortest.hasNext() ? shortest.next() : null;
+            if (this.next != null) {
+                this.seen.add(new Path(this.next));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null && !this.found.isEmpty()) {
+                this.deviate(this.found.get(this.found.size() - 1));
+                Path p = this.candidates.poll();
+                this.next = p == null ? null : p.vertices;
+            }
+            return this.next != null;
+        }
+
+        @Override
+        public int[] next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("No more paths.");
+            }
+            int[] result = this.next;
+            this.found.add(result);
+            this.next = null;
+            return result;
+        }
+
+        // Add every deviation from path to the candidates.
+        private void deviate(int[] path) {
+            for (int i = 0; i + 1 < path.length; i++) {
+                this.banned.clear();
+                for (int j = 0; j < i; j++) {
+                    this.banned.set(path[j], 0);
+                }
+                IntList cut = new IntList();
+                for (int[] p : this.found) {
+                    if (p.length > i + 1
+                          && Arrays.equals(p, 0, i + 1, path, 0, i + 1)) {
+                        cut.add(p[i + 1]);
+                    }
+                }
+                int[] spur = this.search(path[i], cut);
+                if (spur == null) {
+                    continue;
+                }
+                int[] whole = Arrays.copyOf(path, i + spur.length);
+                System.arraycopy(spur, 0, whole, i, spur.length);
+                Path p = new Path(whole);
+                if (this.seen.add(p)) {
+                    this.candidates.add(p);
+                }
+            }
+        }
+
+        // Shortest path from s to the target avoiding banned
+        // vertices and the edges from s to the cut ones.
+        private int[] search(int s, IntList cut) {
+            IntGraph g = ShortestPaths.this.graph;
+            int t = ShortestPaths.this.target;
+            this.parents.clear();
+            this.parents.set(s, -1);
+            IntList queue = new IntList();
+            queue.add(s);
+            for (int head = 0; head < queue.size()
+                  && !this.parents.has(t); head++) {
+                int v = queue.get(head);
+                for (int k = g.begin(v); k < g.end(v); k++) {
+                    int w = g.target(k);
+                    if (this.parents.has(w) || this.banned.has(w)
+                          || v == s && contains(cut, w)) {
+                        continue;
+                    }
+                    this.parents.set(w, v);
+                    queue.add(w);
+                }
+            }
+            if (!this.parents.has(t)) {
+                return null;
+            }
+            int length = 0;
+            for (int v = t; v >= 0; v = this.parents.get(v)) {
+                length++;
+            }
+            int[] path = new int[length];
+            for (int v = t; v >= 0; v = this.parents.get(v)) {
+                path[--length] = v;
+            }
+            return path;
+        }
+    }
+
+    private static boolean contains(IntList list, int value) {
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If database file cannot be read properly.
+    */
+    public static void main(String[] args) throws IOException {
+        boolean alternatives = args.length > 0
+            && args[0].equals("--alternatives");
+        int o = alternatives ? 1 : 0;
+        if (args.length - o != 2 && args.length - o != 3) {
+            System.out.printf("Usage: java ShortestPaths [--alternatives] "
+                + "database actor [k]\n");
+            System.exit(1);
+        }
+        int k = args.length - o == 3 ? Integer.parseInt(args[o + 2]) : 10;
+
+        Database db = Database.load(args[o]);
+        int actor = db.id(args[o + 1]);
+        int bacon = db.id("Bacon, Kevin");
+        if (actor < 0 || bacon < 0) {
+            System.out.printf("Error: Can't find %s in database.\n",
+                actor < 0 ? args[o + 1] : "Bacon, Kevin");
+            System.exit(1);
+        }
+
+        ShortestPaths paths = new ShortestPaths(db.graph(), actor, bacon);
+        if (paths.distance() < 0) {
+            System.out.printf("Error: Can't connect %s to Bacon, Kevin.\n",
+                args[o + 1]);
+            System.exit(1);
+        }
+        long count = paths.count();
+        System.out.printf("%s shortest paths of length %d\n",
+            count == Long.MAX_VALUE ? "Over " + count : "" + count,
+            paths.distance());
+        Iterator<int[]> it = alternatives ? paths.alternatives()
+            : paths.all();
+        for (int i = 0; i < k && it.hasNext(); i++) {
+            StringBuilder line = new StringBuilder();
+            for (int v : it.next()) {
+                line.append(line.length() == 0 ? "" : " / ")
+                    .append(db.name(v));
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+    Binary snapshots of a Database.
+
+    A snapshot holds everything a Database needs in the form it
+    needs it: the adjacency arrays, the three tables of the
+    NameDictionary (names as UTF-8 bytes, an offset table, and a
+    hash table from names to vertex ids), and a bit per vertex
+    telling movies from actors. Opening one maps the file into
+    memory and wraps the sections in buffers, so the database is
+    usable right away, without parsing and without allocating
+    anything per vertex.
+
+    All numbers are little-endian ints. The layout, after a header
+    of HEADER bytes, is
+
+        offsets      order+1 ints
+        targets      slots ints
+        nameOffsets  order+1 ints, byte offsets into names
+        table        tableSize ints, vertex id + 1 or 0 if empty
+        movies       (order+31)/32 ints, one bit per vertex
+        names        nameBytes bytes
+
+    The header records size, modification time, and a hash of the
+    text file the snapshot was made from, so stale snapshots can
+    be told apart from current ones.
+
+    Usage: java Snapshot database.txt [snapshot]
+       or: java Snapshot --check snapshot database.txt
+*/
+public final class Snapshot {
+    private static final int MAGIC = 0x4b42736e; // "KBsn"
+    private static final int VERSION = 1;
+    private static final int HEADER = 96;
+
+    // Shut up checkstyle.
+    private Snapshot() {}
+
+    /**
+        Tell snapshots from other files.
+        @param file File to check.
+        @return True if file starts like a snapshot.
+        @throws IOException If the file cannot be read.
+    */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel c = FileChannel.open(file)) {
+            ByteBuffer b = ByteBuffer.allocate(4).order(
+                ByteOrder.LITTLE_ENDIAN);
+            return c.read(b, 0) == 4 && b.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+        Write snapshot of a database.
+        @param db Database to write.
+        @param source Text file the database was parsed from.
+        @param file Snapshot file to write; replaced atomically.
+        @throws IOException If a file cannot be read or written.
+    */
+    public static void write(Database db, Path source, Path file)
+        throws IOException {
+        IntGraph g = db.graph();
+        int n = g.order();
+        int slots = n == 0 ? 0 : g.end(n - 1);
+
+        // the dictionary's own tables go in as they are
+        NameDictionary names = db.names();
+        IntBuffer nameOffsets = names.offsets();
+        IntBuffer table = names.table();
+        IntBuffer movies = db.movies();
+        ByteBuffer nameBytes = names.bytes();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(
+                Files.newOutputStream(tmp), 1 << 16)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(
+                ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION);
+            header.putLong(Files.size(source));
+            header.putLong(Files.getLastModifiedTime(source).toMillis());
+            header.put(BaconIndex.hash(source));
+            header.putInt(n).putInt(slots).putInt(table.limit());
+            header.putInt(nameBytes.limit());
+            out.write(header.array());
+
+            IntWriter ints = new IntWriter(out);
+            for (int v = 0; v < n; v++) {
+                ints.write(g.begin(v));
+            }
+            ints.write(slots);
+            for (int v = 0; v < n; v++) {
+                for (int k = g.begin(v); k < g.end(v); k++) {
+                    ints.write(g.target(k));
+                }
+            }
+            ints.write(nameOffsets);
+            ints.write(table);
+            ints.write(movies);
+            ints.flush();
+            byte[] chunk = new byte[1 << 16];
+            while (nameBytes.hasRemaining()) {
+                int length = Math.min(chunk.length, nameBytes.remaining());
+                nameBytes.get(chunk, 0, length);
+                out.write(chunk, 0, length);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+        Parse a database text file and write its snapshot.
+        @param source Text file, plain or gzipped.
+        @param file Snapshot file to write; replaced atomically.
+        @throws IOException If a file cannot be read or written.
+    */
+    public static void write(Path source, Path file) throws IOException {
+        Database db;
+        if (InputPipe.isGzip(source)) {
+            try (InputStream in = InputPipe.open(source.toString())) {
+                db = ParallelParser.parse(in);
+            }
+        } else {
+            db = ParallelParser.parse(source);
+        }
+        write(db, source, file);
+    }
+
+    // Little-endian ints into an OutputStream, a buffer at a time.
+    private static final class IntWriter {
+        private final OutputStream out;
+        private final ByteBuffer buffer;
+
+        IntWriter(OutputStream o) {
+            this.out = o;
+            this.buffer = ByteBuffer.allocate(1 << 16).order(
+                ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void write(int i) throws IOException {
+            if (!this.buffer.hasRemaining()) {
+                this.flush();
+            }
+            this.buffer.putInt(i);
+        }
+
+        void write(IntBuffer a) throws IOException {
+            for (int i = 0; i < a.limit(); i++) {
+                this.write(a.get(i));
+            }
+        }
+
+        void flush() throws IOException {
+            this.out.write(this.buffer.array(), 0, this.buffer.position());
+            this.buffer.clear();
+        }
+    }
+
+    // Carve the next section of ints out of a mapped file.
+    private static IntBuffer ints(ByteBuffer map, int count) {
+        IntBuffer section = map.slice(map.position(), 4 * count)
+            .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        map.position(map.position() + 4 * count);
+        return section;
+    }
+
+    /**
+        Open snapshot.
+
+        The file is mapped read-only and stays mapped for as long
+        as the database is in use.
+
+        @param file Snapshot file.
+        @return The database.
+        @throws IOException If the file cannot be read or is not a
+            snapshot of a version we understand.
+    */
+    public static Database open(Path file) throws IOException {
+        MappedByteBuffer map;
+        try (FileChannel c = FileChannel.open(file)) {
+            map = c.map(FileChannel.MapMode.READ_ONLY, 0, c.size());
+        }
+        map.order(ByteOrder.LITTLE_ENDIAN);
+        if (map.limit() < HEADER || map.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a snapshot.");
+        }
+        if (map.getInt(4) != VERSION) {
+            throw new IOException(file + " has unknown version "
+                + map.getInt(4) + ".");
+        }
+        int n = map.getInt(56);
+        int slots = map.getInt(60);
+        int tableSize = map.getInt(64);
+        int nameBytes = map.getInt(68);
+
+        map.position(HEADER);
+        IntBuffer offsets = ints(map, n + 1);
+        IntBuffer targets = ints(map, slots);
+        IntBuffer nameOffsets = ints(map, n + 1);
+        IntBuffer table = ints(map, tableSize);
+        IntBuffer movies = ints(map, (n + 31) / 32);
+        ByteBuffer names = map.slice(map.position(), nameBytes);
+
+        return new Database(new ArrayGraph(offsets, targets),
+            NameDictionary.wrap(names, nameOffsets, table), movies);
+    }
+
+    /**
+        Compare snapshot with the text file it was made from.
+
+        Matching size and modification time count as current
+        without further ado; otherwise the contents are hashed and
+        compared, so touching or copying the text file doesn't
+        make a snapshot stale.
+
+        @param file Snapshot file.
+        @param source Text file.
+        @return True if the snapshot doesn't reflect source.
+        @throws IOException If a file cannot be read.
+    */
+    public static boolean isStale(Path file, Path source) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER).order(
+            ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel c = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (c.read(header, 0) != HEADER || header.getInt(0) != MAGIC
+                  || header.getInt(4) != VERSION) {
+                return true;
+            }
+        }
+        if (header.getLong(8) != Files.size(source)) {
+            return true;
+        }
+        if (header.getLong(16)
+              == Files.getLastModifiedTime(source).toMillis()) {
+            return false;
+        }
+        byte[] stored = Arrays.copyOfRange(header.array(), 24, 56);
+        return !Arrays.equals(stored, BaconIndex.hash(source));
+    }
+
+    /**
+        Main method.
+        @param args Command line arguments.
+        @throws IOException If a file cannot be read or written.
+    */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("--check")) {
+            boolean stale = isStale(Paths.get(args[1]), Paths.get(args[2]));
+            System.out.printf("%s is %s.\n", args[1],
+                stale ? "stale" : "current");
+            System.exit(stale ? 1 : 0);
+        }
+        if (args.length != 1 && args.length != 2) {
+            System.out.printf("Usage: java Snapshot database [snapshot]\n"
+                + "   or: java Snapshot --check snapshot database\n");
+            System.exit(1);
+        }
+
+        Path source = Paths.get(args[0]);
+        Path file = Paths.get(args.length == 2 ? args[1] : args[0] + ".snap");
+        write(source, file);
+    }
+}
@@ -1,29 +1,48 @@
+import java.io.IOException;
 import java.util.Collection;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
     A directed graph implementation optimized for sparse graphs.
 
-    Incidence lists are used to keep track of adjacencies.
+    Incidence lists are used to keep track of adjacencies. Every
+    vertex and edge remembers its slot in the lists it is on, so
+    removal swaps the last element into the hole instead of
+    searching and shifting; as a consequence the order of those
+    lists changes when something is removed. A hash index on the
+    (from, to) pair of every edge catches duplicates. Insertion
+    and removal both take expected constant time, even at hub
+    vertices with thousands of edges.
 
     @param <V> Type of vertex element
     @param <E> Type of edge element
 */
 public final class SparseGraph<V, E> implements Graph<V, E> {
     private final class IncidenceVertex implements Vertex<V> {
-        public Collection<DirectedEdge> outgoing;
-        public Collection<DirectedEdge> incoming;
+        public List<DirectedEdge> outgoing;
+        public List<DirectedEdge> incoming;
 
         public V data;
         public Object label;
+        public int labelEpoch;
         public boolean removed;
 
-        public IncidenceVertex(V d) {
+        // for Graph.id and the edge index, reused once removed
+        public int id;
+        // where in vertices we are
+        public int slot;
+
+        public IncidenceVertex(V d, int i) {
             this.outgoing = new ArrayList<DirectedEdge>();
             this.incoming = new ArrayList<DirectedEdge>();
             this.data = d;
             this.label = null;
             this.removed = false;
+            this.id = i;
         }
 
         @Override
@@ -42,8 +61,14 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
 
         public E data;
         public Object label;
+        public int labelEpoch;
         public boolean removed;
 
+        // where in edges, from.outgoing, and to.incoming we are
+        public int slot;
+        public int outSlot;
+        public int inSlot;
+
         private DirectedEdge(IncidenceVertex f, IncidenceVertex t, E d) {
             this.from = f;
             this.to = t;
@@ -62,13 +87,85 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
         }
     }
 
-    private Collection<IncidenceVertex> vertices;
-    private Collection<DirectedEdge> edges;
+    // Walks an incidence list in place.
+    private final class IncidenceCursor implements Cursor<V, E> {
+        private List<DirectedEdge> list = Collections.emptyList();
+        private boolean out;
+        private int next;
+        private DirectedEdge current;
+        private int expected;
+
+        private void start(List<DirectedEdge> l, boolean o) {
+            this.list = l;
+            this.out = o;
+            this.next = 0;
+            this.current = null;
+            this.expected = SparseGraph.this.modifications;
+        }
+
+        @Override
+        public void outgoing(Vertex<V> vertex) {
+            this.start(SparseGraph.this.validateVertex(vertex).outgoing, true);
+        }
+
+        @Override
+        public void incoming(Vertex<V> vertex) {
+            this.start(SparseGraph.this.validateVertex(vertex).incoming,
+                false);
+        }
+
+        @Override
+        public boolean next() {
+            if (this.expected != SparseGraph.this.modifications) {
+                throw new ConcurrentModificationException();
+            }
+            if (this.next == this.list.size()) {
+                this.current = null;
+                return false;
+            }
+            this.current = this.list.get(this.next++);
+            return true;
+        }
+
+        @Override
+        public Edge<E> edge() {
+            if (this.current == null) {
+                throw new NoSuchElementException("No current edge.");
+            }
+            return this.current;
+        }
+
+        @Override
+        public Vertex<V> other() {
+            if (this.current == null) {
+                throw new NoSuchElementException("No current edge.");
+            }
+            return this.out ? this.current.to : this.current.from;
+        }
+    }
+
+    private List<IncidenceVertex> vertices;
+    private List<DirectedEdge> edges;
+    // edge insertions and removals, so cursors notice them
+    private int modifications;
+
+    // Open addressing table of all edges, keyed by (from, to).
+    private DirectedEdge[] index;
+    // Next vertex id never used, and ids of removed vertices.
+    private int nextId;
+    private IntList freeIds;
+    // Labels are only valid if stamped with the current epoch.
+    private int epoch;
 
     /** New SparseGraph instance. */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // no generic arrays
     public SparseGraph() {
         this.vertices = new ArrayList<IncidenceVertex>();
         this.edges = new ArrayList<DirectedEdge>();
+        this.index = new SparseGraph.DirectedEdge[16];
+        this.nextId = 0;
+        this.freeIds = new IntList();
+        this.epoch = 1;
     }
 
     @SuppressWarnings("unchecked") // We're typesafe because we use instanceof.
@@ -108,19 +205,78 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
 
     @Override
     public Vertex<V> insert(V v) {
-        IncidenceVertex newVertex = new IncidenceVertex(v);
+        int id = this.freeIds.size() > 0
+            ? this.freeIds.removeLast() : this.nextId++;
+        IncidenceVertex newVertex = new IncidenceVertex(v, id);
+        newVertex.slot = this.vertices.size();
         this.vertices.add(newVertex);
         return newVertex;
     }
 
-    private boolean isDuplicateEdge(Collection<DirectedEdge> c,
-          IncidenceVertex from, IncidenceVertex to) {
-        for (DirectedEdge e : c) {
-            if (e.from == from && e.to == to) {
-                return true;
+    // Vertex ids are mostly consecutive, so mix well or linear
+    // probing would run into long clusters.
+    private int hash(IncidenceVertex from, IncidenceVertex to) {
+        int h = from.id * 0x9e3779b9 + to.id;
+        h = (h ^ (h >>> 16)) * 0x85ebca6b;
+        h = (h ^ (h >>> 13)) * 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    // Slot of the index holding the edge from..to, or the empty
+    // slot where it would go.
+    private int find(IncidenceVertex from, IncidenceVertex to) {
+        int mask = this.index.length - 1;
+        for (int s = this.hash(from, to) & mask;; s = (s + 1) & mask) {
+            DirectedEdge e = this.index[s];
+            if (e == null || e.from == from && e.to == to) {
+                return s;
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"}) // no generic arrays
+    private void grow() {
+        DirectedEdge[] old = this.index;
+        this.index = new SparseGraph.DirectedEdge[2 * old.length];
+        for (DirectedEdge e : old) {
+            if (e != null) {
+                this.index[this.find(e.from, e.to)] = e;
             }
         }
-        return false;
+    }
+
+    // Take an edge out of the index, shifting later edges of the
+    // same probe sequence back so lookups still find them.
+    private void unindex(DirectedEdge e) {
+        int mask = this.index.length - 1;
+        int hole = this.find(e.from, e.to);
+        this.index[hole] = null;
+        for (int s = (hole + 1) & mask; this.index[s] != null;
+              s = (s + 1) & mask) {
+            DirectedEdge d = this.index[s];
+            int home = this.hash(d.from, d.to) & mask;
+            if (((s - home) & mask) >= ((s - hole) & mask)) {
+                this.index[hole] = d;
+                this.index[s] = null;
+                hole = s;
+            }
+        }
+    }
+
+    /**
+        Edge between two vertices, from the (from, to) index in
+        expected constant time.
+        @param from Vertex position the edge starts at.
+        @param to Vertex position the edge ends at.
+        @return The edge, or null if there is none.
+        @throws IllegalArgumentException If a vertex position is
+            invalid.
+    */
+    public Edge<E> edge(Vertex<V> from, Vertex<V> to)
+        throws IllegalArgumentException {
+        IncidenceVertex f = this.validateVertex(from);
+        IncidenceVertex t = this.validateVertex(to);
+        return this.index[this.find(f, t)];
     }
 
     @Override
@@ -130,22 +286,28 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
         IncidenceVertex t;
 
         // validation
-        Collection<DirectedEdge> search;
         if (from == to) {
             throw new IllegalArgumentException("Can't create self-loops.");
         }
         f = this.validateVertex(from);
         t = this.validateVertex(to);
-        search = f.outgoing.size() <= t.incoming.size()
-            ? f.outgoing : t.incoming;
-        if (this.isDuplicateEdge(search, f, t)) {
+        int s = this.find(f, t);
+        if (this.index[s] != null) {
             throw new IllegalArgumentException("Can't insert duplicate edges.");
         }
 
         insert = new DirectedEdge(f, t, e);
+        insert.slot = this.edges.size();
+        insert.outSlot = f.outgoing.size();
+        insert.inSlot = t.incoming.size();
         f.outgoing.add(insert);
         t.incoming.add(insert);
         this.edges.add(insert);
+        this.index[s] = insert;
+        if (2 * this.edges.size() > this.index.length) {
+            this.grow();
+        }
+        this.modifications++;
 
         return insert;
     }
@@ -160,7 +322,12 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
         }
 
         v.removed = true;
-        this.vertices.remove(v);
+        IncidenceVertex last = this.vertices.remove(this.vertices.size() - 1);
+        if (last != v) {
+            this.vertices.set(v.slot, last);
+            last.slot = v.slot;
+        }
+        this.freeIds.add(v.id);
 
         return v.data;
     }
@@ -170,9 +337,27 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
         DirectedEdge e = this.validateEdge(edge);
 
         e.removed = true;
-        e.from.outgoing.remove(e);
-        e.to.incoming.remove(e);
-        this.edges.remove(e);
+        this.unindex(e);
+
+        // swap the last edge of each list into the hole
+        DirectedEdge last = this.edges.remove(this.edges.size() - 1);
+        if (last != e) {
+            this.edges.set(e.slot, last);
+            last.slot = e.slot;
+        }
+        List<DirectedEdge> out = e.from.outgoing;
+        last = out.remove(out.size() - 1);
+        if (last != e) {
+            out.set(e.outSlot, last);
+            last.outSlot = e.outSlot;
+        }
+        List<DirectedEdge> in = e.to.incoming;
+        last = in.remove(in.size() - 1);
+        if (last != e) {
+            in.set(e.inSlot, last);
+            last.inSlot = e.inSlot;
+        }
+        this.modifications++;
 
         return e.data;
     }
@@ -191,6 +376,16 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
         return edgs;
     }
 
+    @Override
+    public int id(Vertex<V> vertex) {
+        return this.validateVertex(vertex).id;
+    }
+
+    @Override
+    public int ids() {
+        return this.nextId;
+    }
+
     @Override
     public Iterable<Edge<E>> outgoing(Vertex<V> vertex) {
         IncidenceVertex v = this.validateVertex(vertex);
@@ -207,6 +402,11 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
         return ins;
     }
 
+    @Override
+    public Cursor<V, E> cursor() {
+        return new IncidenceCursor();
+    }
+
     @Override
     public Vertex<V> from(Edge<E> edge) {
         DirectedEdge e = this.validateEdge(edge);
@@ -226,7 +426,7 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
             throw new IllegalArgumentException("Can't label null.");
         }
         v.label = l;
-        return;
+        v.labelEpoch = this.epoch;
     }
 
     @Override
@@ -236,30 +436,37 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
             throw new IllegalArgumentException("Can't label null.");
         }
         e.label = l;
-        return;
+        e.labelEpoch = this.epoch;
     }
 
     @Override
     public Object label(Vertex<V> vertex) {
         IncidenceVertex v = this.validateVertex(vertex);
-        return v.label;
+        return v.labelEpoch == this.epoch ? v.label : null;
     }
 
     @Override
     public Object label(Edge<E> edge) {
         DirectedEdge e = this.validateEdge(edge);
-        return e.label;
+        return e.labelEpoch == this.epoch ? e.label : null;
     }
 
     @Override
     public void clearLabels() {
-        for (IncidenceVertex v : this.vertices) {
-            v.label = null;
-        }
-        for (DirectedEdge e : this.edges) {
-            e.label = null;
+        // old labels stay where they are but no longer count; only
+        // when the epoch runs out do they actually get cleared
+        this.epoch++;
+        if (this.epoch == Integer.MAX_VALUE) {
+            for (IncidenceVertex v : this.vertices) {
+                v.label = null;
+                v.labelEpoch = 0;
+            }
+            for (DirectedEdge e : this.edges) {
+                e.label = null;
+                e.labelEpoch = 0;
+            }
+            this.epoch = 1;
         }
-        return;
     }
 
     /**
@@ -268,19 +475,13 @@ public final class SparseGraph<V, E> implements Graph<V, E> {
         @return The string.
     */
     public String toString() {
-        String result = "digraph {\n";
-
-        for (IncidenceVertex v : this.vertices) {
-            result += "  \"" + v.data.toString() + "\";\n";
-        }
-        for (DirectedEdge e : this.edges) {
-            result += "  \"" + e.from.data.toString() + "\""
-                        + " -> "
-                        + "\"" + e.to.data.toString() + "\""
-                        + " [label=\"" + e.data.toString() + "\"];\n";
+        StringBuilder result = new StringBuilder();
+        try {
+            DotWriter.write(this, result);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw
+            throw new IllegalStateException(e);
         }
-
-        result += "}";
-        return result;
+        return result.toString();
     }
 }
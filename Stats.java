@@ -0,0 +1,244 @@
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+    Timings and counters for one run of a program.
+
+    A run is made of stages (say "read", then "search"), each of
+    which becomes a JDK Flight Recorder event spanning the stage,
+    so a recording shows where the time went next to GC and JIT
+    activity. Within a stage, time can be charged piece by piece
+    to finer phases ("read.parse", "read.lookup", ...) by calling
+    lap() after each piece; laps take the time since the last lap,
+    so they cost two clock reads and are only taken when the
+    summary is wanted. Counters (lines read, edges scanned, ...)
+    and the frontier size of every search level become events of
+    their own. Searches that run over and over (say in Bench) ask
+    recording() first and skip all of it when neither a summary
+    nor a recording wants it, so they allocate nothing here.
+
+    Record with
+
+        java -XX:StartFlightRecording=filename=kevin.jfr Kevin ...
+        jfr print --categories Kevin kevin.jfr
+
+    or pass --stats to Kevin for a summary on standard error.
+*/
+public final class Stats {
+    /** A stage of a run. */
+    @Name("kevin.Stage")
+    @Label("Stage")
+    @Category("Kevin")
+    @Description("A stage of a run, like reading or searching")
+    static final class StageEvent extends Event {
+        @Label("Stage")
+        String stage;
+    }
+
+    /** A counter, as of the end of the run. */
+    @Name("kevin.Counter")
+    @Label("Counter")
+    @Category("Kevin")
+    @Description("Number of things done, like lines read")
+    static final class CounterEvent extends Event {
+        @Label("Counter")
+        String counter;
+        @Label("Value")
+        long value;
+    }
+
+    /** A level of a breadth-first search. */
+    @Name("kevin.Level")
+    @Label("Search Level")
+    @Category("Kevin")
+    @Description("A level of a breadth-first search")
+    static final class LevelEvent extends Event {
+        @Label("Level")
+        int level;
+        @Label("Frontier")
+        long frontier;
+        @Label("Edges Scanned")
+        long scanned;
+    }
+
+    private static final EventType STAGE =
+        EventType.getEventType(StageEvent.class);
+    private static final EventType LEVEL =
+        EventType.getEventType(LevelEvent.class);
+
+    private final boolean laps;
+    private final List<String> phases;
+    private final List<String> units;
+    private long[] nanos;
+    private final Map<String, Long> counters;
+    private final List<long[]> levels;
+    private StageEvent stage;
+    private long last;
+
+    /**
+        New Stats instance.
+        @param l Take laps, for a summary with phase timings.
+    */
+    public Stats(boolean l) {
+        this.laps = l;
+        this.phases = new ArrayList<String>();
+        this.units = new ArrayList<String>();
+        this.nanos = new long[8];
+        this.counters = new LinkedHashMap<String, Long>();
+        this.levels = new ArrayList<long[]>();
+    }
+
+    /**
+        Whether anything is kept: a summary is wanted, or a flight
+        recording takes stages or search levels.
+        @return False if calls here can be skipped.
+    */
+    public boolean recording() {
+        return this.laps || STAGE.isEnabled() || LEVEL.isEnabled();
+    }
+
+    /**
+        Add a phase time can be charged to.
+        @param name Name to show.
+        @param unit Counter to show the throughput of, or null.
+        @return Id of the phase, for lap(); the same id as before
+            if the phase was added already.
+    */
+    public int phase(String name, String unit) {
+        int p = this.phases.indexOf(name);
+        if (p >= 0) {
+            return p;
+        }
+        this.phases.add(name);
+        this.units.add(unit);
+        if (this.phases.size() > this.nanos.length) {
+            this.nanos = Arrays.copyOf(this.nanos, 2 * this.nanos.length);
+        }
+        return this.phases.size() - 1;
+    }
+
+    /**
+        Start a stage, ending the one before if any; also starts
+        the clock for laps.
+        @param name Name of the stage.
+    */
+    public void begin(String name) {
+        this.end();
+        this.stage = new StageEvent();
+        this.stage.stage = name;
+        this.stage.begin();
+        this.last = System.nanoTime();
+    }
+
+    /** End the current stage, if any. */
+    public void end() {
+        if (this.stage != null) {
+            this.stage.commit();
+            this.stage = null;
+        }
+    }
+
+    /**
+        Charge the time since the last lap, or since the stage
+        began, to a phase.
+        @param phase Id from phase().
+    */
+    public void lap(int phase) {
+        if (this.laps) {
+            long now = System.nanoTime();
+            this.nanos[phase] += now - this.last;
+            this.last = now;
+        }
+    }
+
+    /**
+        Add to a counter.
+        @param name Counter, created at zero if new.
+        @param n Amount to add.
+    */
+    public void count(String name, long n) {
+        this.counters.merge(name, n, Long::sum);
+    }
+
+    /**
+        Read a counter.
+        @param name Counter.
+        @return Its value, zero if never counted.
+    */
+    public long counter(String name) {
+        return this.counters.getOrDefault(name, 0L);
+    }
+
+    /**
+        Record a finished level of a breadth-first search.
+        @param level Distance from the start of the search.
+        @param frontier Vertices at that distance.
+        @param scanned Edges looked at to expand them.
+    */
+    public void level(int level, long frontier, long scanned) {
+        // only the summary reads them back
+        if (this.laps) {
+            this.levels.add(new long[] {frontier, scanned});
+        }
+        if (LEVEL.isEnabled()) {
+            LevelEvent e = new LevelEvent();
+            e.level = level;
+            e.frontier = frontier;
+            e.scanned = scanned;
+            e.commit();
+        }
+    }
+
+    /**
+        End the run: end the current stage and commit counters.
+    */
+    public void finish() {
+        this.end();
+        for (Map.Entry<String, Long> c : this.counters.entrySet()) {
+            CounterEvent e = new CounterEvent();
+            e.counter = c.getKey();
+            e.value = c.getValue();
+            e.commit();
+        }
+    }
+
+    /**
+        Print a summary: phases with their time and throughput,
+        counters, and the frontier of every search level.
+        @param out Where to print it.
+    */
+    public void print(PrintStream out) {
+        for (int p = 0; p < this.phases.size(); p++) {
+            double ms = this.nanos[p] / 1e6;
+            String unit = this.units.get(p);
+            if (unit == null || this.nanos[p] == 0) {
+                out.printf("%-16s %10.1f ms\n", this.phases.get(p), ms);
+            } else {
+                out.printf("%-16s %10.1f ms %12.0f %s/s\n",
+                    this.phases.get(p), ms,
+                    this.counter(unit) / (this.nanos[p] / 1e9), unit);
+            }
+        }
+        for (Map.Entry<String, Long> c : this.counters.entrySet()) {
+            out.printf("%-16s %10d\n", c.getKey(), c.getValue());
+        }
+        if (!this.levels.isEmpty()) {
+            StringBuilder s = new StringBuilder("frontiers       ");
+            for (long[] l : this.levels) {
+                s.append(' ').append(l[0]);
+            }
+            out.println(s);
+        }
+    }
+}
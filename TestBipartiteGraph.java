@@ -0,0 +1,104 @@
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Iterator;
+
+
+public class TestBipartiteGraph {
+    private BipartiteGraph<String, String> g;
+    private Vertex<String> movie;
+    private Vertex<String> actor;
+    private Edge<String> credit;
+
+    @Before
+    public void setUp() {
+        this.g = new BipartiteGraph<String, String>("features", "acts in");
+        this.movie = this.g.insert("Footloose", true);
+        this.actor = this.g.insert("Bacon, Kevin", false);
+        this.credit = this.g.insert(this.movie, this.actor, "features");
+    }
+
+    @Test
+    public void oneEdgePerCredit() {
+        Iterator<Edge<String>> it = this.g.edges().iterator();
+        assertEquals(this.credit, it.next());
+        assertTrue(!it.hasNext());
+    }
+
+    @Test
+    public void edgeAtBothEndsBothWays() {
+        for (Vertex<String> v : Arrays.asList(this.movie, this.actor)) {
+            assertEquals(this.credit, this.g.outgoing(v).iterator().next());
+            assertEquals(this.credit, this.g.incoming(v).iterator().next());
+        }
+    }
+
+    @Test
+    public void kindComesFromSide() {
+        assertEquals("features", this.g.element(this.movie, this.credit));
+        assertEquals("acts in", this.g.element(this.actor, this.credit));
+        assertEquals("features", this.credit.get());
+    }
+
+    @Test
+    public void oppositeCrossesFromEitherEnd() {
+        assertEquals(this.actor, this.g.opposite(this.movie, this.credit));
+        assertEquals(this.movie, this.g.opposite(this.actor, this.credit));
+        assertEquals(this.movie, this.g.from(this.credit));
+        assertEquals(this.actor, this.g.to(this.credit));
+    }
+
+    @Test
+    public void cursorCrossesFromEitherEnd() {
+        Cursor<String, String> cur = this.g.cursor();
+        cur.incoming(this.movie);
+        assertTrue(cur.next());
+        assertEquals(this.actor, cur.other());
+        assertTrue(!cur.next());
+        cur.outgoing(this.actor);
+        assertTrue(cur.next());
+        assertEquals(this.credit, cur.edge());
+        assertEquals(this.movie, cur.other());
+        assertTrue(!cur.next());
+    }
+
+    @Test
+    public void insertFromRightSide() {
+        Vertex<String> tremors = this.g.insert("Tremors", true);
+        Edge<String> e = this.g.insert(this.actor, tremors, "acts in");
+        assertEquals(tremors, this.g.from(e));
+        assertEquals(this.actor, this.g.to(e));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reverseIsDuplicate() {
+        this.g.insert(this.actor, this.movie, "acts in");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sameSideRejected() {
+        Vertex<String> tremors = this.g.insert("Tremors", true);
+        this.g.insert(this.movie, tremors, "features");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongKindRejected() {
+        Vertex<String> tremors = this.g.insert("Tremors", true);
+        this.g.insert(tremors, this.actor, "acts in");
+    }
+
+    @Test
+    public void removeEdgeFromBothEnds() {
+        this.g.remove(this.credit);
+        assertTrue(!this.g.outgoing(this.movie).iterator().hasNext());
+        assertTrue(!this.g.incoming(this.actor).iterator().hasNext());
+        this.g.remove(this.actor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void removeVertexWithEdges() {
+        this.g.remove(this.movie);
+    }
+}
@@ -0,0 +1,97 @@
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+
+// The Graph contract is checked by the read-side theories in TestGraph;
+// these are the parts only CompactGraph has.
+public class TestCompactGraph {
+    private SparseGraph<String, Integer> sparse;
+    private CompactGraph<String, Integer> g;
+    private Vertex<String> a;
+    private Vertex<String> b;
+    private Vertex<String> c;
+
+    @Before
+    public void setUp() {
+        this.sparse = new SparseGraph<String, Integer>();
+        Vertex<String> hi = this.sparse.insert("Hi");
+        Vertex<String> bye = this.sparse.insert("Bye");
+        Vertex<String> yo = this.sparse.insert("Yo");
+        this.sparse.insert(hi, bye, 43);
+        this.sparse.insert(bye, hi, 12);
+        this.sparse.insert(hi, yo, 7);
+
+        this.g = CompactGraph.of(this.sparse);
+        Iterator<Vertex<String>> it = this.g.vertices().iterator();
+        this.a = it.next();
+        this.b = it.next();
+        this.c = it.next();
+    }
+
+    @Test
+    public void copyKeepsOrder() {
+        assertEquals(3, this.g.order());
+        assertEquals(3, this.g.ids());
+    }
+
+    @Test
+    public void intViewMatchesOutgoing() {
+        int v = this.g.id(this.a);
+        assertEquals(2, this.g.end(v) - this.g.begin(v));
+        assertEquals(this.g.id(this.b), this.g.target(this.g.begin(v)));
+        assertEquals(this.g.id(this.c), this.g.target(this.g.begin(v) + 1));
+        assertEquals(this.c, this.g.vertex(this.g.id(this.c)));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        this.sparse.insert("Extra");
+        assertEquals(3, this.g.order());
+    }
+
+
+    // Testing exception-throwing:
+
+    @Test (expected=UnsupportedOperationException.class)
+    public void cantInsertVertex() {
+        this.g.insert("Hello");
+    }
+
+    @Test (expected=UnsupportedOperationException.class)
+    public void cantInsertEdge() {
+        this.g.insert(this.b, this.c, 1);
+    }
+
+    @Test (expected=UnsupportedOperationException.class)
+    public void cantRemoveEdge() {
+        this.g.remove(this.g.edges().iterator().next());
+    }
+
+    @Test (expected=IllegalArgumentException.class)
+    public void outgoingStopsSource() {
+        Vertex<String> v = this.sparse.vertices().iterator().next();
+        this.g.outgoing(v);
+    }
+
+    @Test (expected=IllegalArgumentException.class)
+    public void constructorStopsDuplicateEdge() {
+        List<String> names = Arrays.asList("x", "y");
+        IntList from = new IntList();
+        IntList to = new IntList();
+        from.add(0);
+        to.add(1);
+        from.add(0);
+        to.add(1);
+        new CompactGraph<String, Integer>(names, from, to,
+            Arrays.asList(1, 2));
+    }
+
+    @Test (expected=IllegalArgumentException.class)
+    public void vertexStopsMissingId() {
+        this.g.vertex(3);
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.ForkJoinPool;
+
+
+public class TestComponents {
+    @Test
+    public void sameAsSearch() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < 10; seed++) {
+                // sparse enough to fall apart into many pieces
+                int n = 1 + seed * 3001;
+                IntGraph g = RandomGraphs.symmetric(n, n / 2 + seed, seed);
+                Components c = Components.of(g, pool);
+                int[] d = new int[n];
+                int[] p = new int[n];
+                long total = 0;
+                for (int s = 0; s < Math.min(n, 50); s++) {
+                    ParallelBfs.sequential(g, s, d, p);
+                    int reached = 0;
+                    for (int v = 0; v < n; v++) {
+                        assertEquals(d[v] >= 0, c.connected(s, v));
+                        reached += d[v] >= 0 ? 1 : 0;
+                    }
+                    assertEquals(reached, c.size(c.component(s)));
+                }
+                for (int i = 0; i < c.count(); i++) {
+                    total += c.size(i);
+                }
+                assertEquals(n, total);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void numberedBySmallestVertex() {
+        IntList from = new IntList();
+        IntList to = new IntList();
+        from.add(4);
+        to.add(1);
+        from.add(3);
+        to.add(0);
+        from.add(5);
+        to.add(3);
+        Components c = Components.of(ArrayGraph.symmetric(7, from, to));
+        assertEquals(4, c.count());
+        assertArrayEquals(new int[] {0, 1, 2, 0, 1, 0, 3}, new int[] {
+            c.component(0), c.component(1), c.component(2), c.component(3),
+            c.component(4), c.component(5), c.component(6)});
+        assertEquals(0, c.largest());
+        assertEquals(3, c.size(0));
+        // two of size 1, one of size 2, one of size 3
+        assertArrayEquals(new long[] {2, 2}, c.histogram());
+    }
+
+    @Test
+    public void graphWithRemovedVertex() {
+        Graph<String, String> g = new SparseGraph<String, String>();
+        Vertex<String> a = g.insert("a");
+        Vertex<String> b = g.insert("b");
+        Vertex<String> gone = g.insert("gone");
+        Vertex<String> c = g.insert("c");
+        Vertex<String> d = g.insert("d");
+        g.insert(a, b, "ab");
+        g.insert(d, c, "dc");
+        g.remove(gone);
+        Components parts = Components.of(g);
+        assertEquals(2, parts.count());
+        assertTrue(parts.connected(g.id(a), g.id(b)));
+        // one way is enough
+        assertTrue(parts.connected(g.id(c), g.id(d)));
+        assertFalse(parts.connected(g.id(a), g.id(d)));
+    }
+}
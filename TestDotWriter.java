@@ -0,0 +1,99 @@
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.Arrays;
+
+
+public class TestDotWriter {
+    private SparseGraph<String, String> g;
+    private Vertex<String> a;
+    private Vertex<String> m;
+    private Vertex<String> b;
+    private Vertex<String> n;
+    private Vertex<String> c;
+
+    // Actor a and b in movie m, b and c in movie n, both ways.
+    @Before
+    public void setUp() {
+        this.g = new SparseGraph<String, String>();
+        this.a = this.g.insert("a");
+        this.m = this.g.insert("m");
+        this.b = this.g.insert("b");
+        this.n = this.g.insert("n");
+        this.c = this.g.insert("c \"C\"");
+        this.credit(this.m, this.a);
+        this.credit(this.m, this.b);
+        this.credit(this.n, this.b);
+        this.credit(this.n, this.c);
+    }
+
+    private void credit(Vertex<String> movie, Vertex<String> actor) {
+        this.g.insert(movie, actor, "features");
+        this.g.insert(actor, movie, "acts in");
+    }
+
+    private static int count(String s, String part) {
+        return s.split(part, -1).length - 1;
+    }
+
+    @Test
+    public void wholeGraph() throws IOException {
+        StringBuilder out = new StringBuilder();
+        DotWriter.write(this.g, out);
+        String s = out.toString();
+        assertTrue(s.startsWith("digraph {\n"));
+        assertTrue(s.endsWith("}\n"));
+        assertEquals(8, count(s, " -> "));
+        assertTrue(s.contains("  \"c \\\"C\\\"\";\n"));
+        assertTrue(s.contains("  \"m\" -> \"a\" [label=\"features\"];\n"));
+        assertEquals(s, this.g.toString());
+    }
+
+    @Test
+    public void neighborhood() throws IOException {
+        StringBuilder out = new StringBuilder();
+        DotWriter.neighborhood(this.g, this.a, 2, out);
+        String s = out.toString();
+        assertTrue(s.contains("  \"a\" [style=bold];\n"));
+        assertTrue(s.contains("  \"b\";\n"));
+        assertTrue(!s.contains("\"n\""));
+        assertEquals(4, count(s, " -> "));
+
+        out = new StringBuilder();
+        DotWriter.neighborhood(this.g, this.a, 0, out);
+        assertEquals("digraph {\n  \"a\" [style=bold];\n}\n",
+            out.toString());
+    }
+
+    @Test
+    public void bipartiteEdgesOnce() throws IOException {
+        BipartiteGraph<String, String> h =
+            new BipartiteGraph<String, String>("features", "acts in");
+        Vertex<String> movie = h.insert("m", true);
+        h.insert(movie, h.insert("a", false), "features");
+        h.insert(movie, h.insert("b", false), "features");
+        StringBuilder out = new StringBuilder();
+        DotWriter.write(h, out);
+        assertEquals(2, count(out.toString(), " -> "));
+    }
+
+    @Test
+    public void pathWithMovies() throws IOException {
+        StringBuilder out = new StringBuilder();
+        DotWriter.path(this.g, Arrays.asList(this.a, this.m, this.b), out);
+        String s = out.toString();
+        // movie n of b is in, but not its other actor c
+        assertTrue(s.contains("  \"n\";\n"));
+        assertTrue(!s.contains("c \\\""));
+        // three vertices and both ways of two edges
+        assertEquals(7, count(s, "style=bold\\]"));
+        assertEquals(6, count(s, " -> "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeHops() throws IOException {
+        DotWriter.neighborhood(this.g, this.a, -1, new StringBuilder());
+    }
+}
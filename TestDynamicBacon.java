@@ -0,0 +1,101 @@
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.Random;
+
+
+public class TestDynamicBacon {
+    private DynamicBacon d;
+
+    // B - 1 - x - 2 - y, and 3 linking x and y as well
+    @Before
+    public void setUp() {
+        this.d = new DynamicBacon();
+        this.d.apply("+1/Bacon, Kevin/x");
+        this.d.apply("+2/x/y");
+        this.d.apply("+3/x/y");
+    }
+
+    @Test
+    public void addShortens() {
+        assertEquals(4, this.d.distance("y"));
+        this.d.apply("+4/y/Bacon, Kevin");
+        assertEquals(2, this.d.distance("y"));
+        assertEquals(Arrays.asList("y", "4", "Bacon, Kevin"),
+            this.d.path("y"));
+        assertTrue(this.d.consistent());
+    }
+
+    @Test
+    public void repeatedCreditAddedOnce() {
+        this.d.apply("+2/y/x/y");
+        int edges = 0;
+        for (Edge<String> e : this.d.graph().edges()) {
+            edges++;
+        }
+        assertEquals(12, edges);
+        this.d.apply("-2/y");
+        assertEquals(4, this.d.distance("y"));
+        assertTrue(this.d.consistent());
+    }
+
+    @Test
+    public void removeWithOtherWayIn() {
+        this.d.apply("-2");
+        assertEquals(4, this.d.distance("y"));
+        assertEquals(-1, this.d.distance("2"));
+        assertTrue(this.d.consistent());
+    }
+
+    @Test
+    public void removeCutsOff() {
+        this.d.apply("-1/x");
+        assertEquals(-1, this.d.distance("x"));
+        assertEquals(-1, this.d.distance("y"));
+        assertNull(this.d.path("y"));
+        assertTrue(this.d.consistent());
+        this.d.apply("+5/Bacon, Kevin/y");
+        assertEquals(4, this.d.distance("x"));
+        assertTrue(this.d.consistent());
+    }
+
+    @Test
+    public void lonelyActorsGo() {
+        this.d.apply("-1");
+        assertEquals(-1, this.d.distance("Bacon, Kevin"));
+        this.d.apply("+6/Bacon, Kevin/y");
+        assertEquals(2, this.d.distance("y"));
+        assertEquals(4, this.d.distance("x"));
+        assertTrue(this.d.consistent());
+    }
+
+    @Test
+    public void randomChanges() {
+        Random random = new Random(19);
+        DynamicBacon r = new DynamicBacon();
+        for (int step = 0; step < 3000; step++) {
+            StringBuilder line = new StringBuilder();
+            boolean add = random.nextInt(3) > 0;
+            line.append(add ? '+' : '-').append("m").append(
+                random.nextInt(200));
+            int cast = add ? 1 + random.nextInt(4) : random.nextInt(3);
+            for (int i = 0; i < cast; i++) {
+                int a = random.nextInt(300);
+                line.append('/').append(a == 0 ? "Bacon, Kevin" : "a" + a);
+            }
+            r.apply(line.toString());
+            if (step % 50 == 0) {
+                assertTrue(line.toString(), r.consistent());
+            }
+        }
+        assertTrue(r.consistent());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void changesNeedSign() {
+        this.d.apply("1/Bacon, Kevin");
+    }
+}
@@ -0,0 +1,102 @@
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+
+public class TestGenerator {
+    private static String write(Generator g) throws IOException {
+        StringWriter out = new StringWriter();
+        g.write(out);
+        return out.toString();
+    }
+
+    private static Database parse(String text) throws IOException {
+        return ParallelParser.parse(new ByteArrayInputStream(
+            text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void sameSeedSameFile() throws IOException {
+        Generator a = new Generator(500, 1500, 1.5, 1.0, 42);
+        Generator b = new Generator(500, 1500, 1.5, 1.0, 42);
+        Generator c = new Generator(500, 1500, 1.5, 1.0, 43);
+        assertEquals(write(a), write(b));
+        assertFalse(write(a).equals(write(c)));
+    }
+
+    @Test
+    public void plantedAtKnownDistances() throws IOException {
+        Generator g = new Generator(3000, 9000, 1.5, 1.0, 7);
+        int[] distances = {1, 2, 5, 9, -1};
+        for (int i = 0; i < distances.length; i++) {
+            g.plant("Target " + i, distances[i]);
+        }
+        Database db = parse(write(g));
+        int bacon = db.id("Bacon, Kevin");
+        int[] d = new int[db.order()];
+        int[] p = new int[db.order()];
+        ParallelBfs.sequential(db.graph(), bacon, d, p);
+        for (int i = 0; i < distances.length; i++) {
+            int t = db.id("Target " + i);
+            // two edges, actor to movie to actor, per Bacon number
+            assertEquals(distances[i] < 0 ? -1 : 2 * distances[i], d[t]);
+        }
+    }
+
+    @Test
+    public void castsAreSkewed() throws IOException {
+        Generator g = new Generator(5000, 15000, 1.5, 1.0, 1);
+        String[] lines = write(g).split("\n");
+        assertEquals(5000, lines.length);
+        int small = 0;
+        int large = 0;
+        for (String line : lines) {
+            int size = line.split("/").length - 1;
+            assertTrue(size >= 1 && size <= 250);
+            small += size <= 3 ? 1 : 0;
+            large += size >= 100 ? 1 : 0;
+        }
+        assertTrue(small > lines.length / 2);
+        assertTrue(large > 0 && large < lines.length / 20);
+
+        // Bacon is busy: in more movies than a typical actor
+        Database db = parse(write(g));
+        int bacon = db.id("Bacon, Kevin");
+        int busy = db.graph().end(bacon) - db.graph().begin(bacon);
+        int tail = db.id("Actor 9000");
+        assertTrue(tail < 0
+            || busy > 10 * (db.graph().end(tail) - db.graph().begin(tail)));
+    }
+
+    @Test(timeout = 10000)
+    public void steepPopularityFinishes() throws IOException {
+        // nearly every draw is the busiest actor, so casts come out
+        // smaller than drawn
+        Generator g = new Generator(200, 600, 0.5, 6, 1);
+        String[] lines = write(g).split("\n");
+        assertEquals(200, lines.length);
+        for (String line : lines) {
+            assertTrue(line.split("/").length >= 2);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void popularityNotANumber() {
+        new Generator(10, 100, 1.5, Double.NaN, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void plantedNameTaken() {
+        new Generator(10, 100, 1.5, 1.0, 1).plant("Actor 3", 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void plantedAtZero() {
+        new Generator(10, 100, 1.5, 1.0, 1).plant("Somebody", 0);
+    }
+}
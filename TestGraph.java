@@ -7,6 +7,13 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
 
 
 @RunWith (Theories.class)
@@ -22,6 +29,239 @@ public class TestGraph {
         }
     };
 
+    // Read-only graphs can't be built by insert, so the read-side
+    // theories get the same small graph ready-made from every
+    // implementation: Hi -> Bye (43), Bye -> Hi (12), Hi -> Yo (7).
+    private interface Built {
+        Graph<String, Integer> init();
+    }
+
+    private static SparseGraph<String, Integer> small() {
+        SparseGraph<String, Integer> g = new SparseGraph<String, Integer>();
+        Vertex<String> hi = g.insert("Hi");
+        Vertex<String> bye = g.insert("Bye");
+        Vertex<String> yo = g.insert("Yo");
+        g.insert(hi, bye, 43);
+        g.insert(bye, hi, 12);
+        g.insert(hi, yo, 7);
+        return g;
+    }
+
+    @DataPoint
+    public static final Built sparseSmall = new Built() {
+        public Graph<String, Integer> init() {
+            return small();
+        }
+    };
+
+    @DataPoint
+    public static final Built compactSmall = new Built() {
+        public Graph<String, Integer> init() {
+            return CompactGraph.of(small());
+        }
+    };
+
+    private static Vertex<String> find(Graph<String, Integer> g,
+        String name) {
+        for (Vertex<String> v : g.vertices()) {
+            if (v.get().equals(name)) {
+                return v;
+            }
+        }
+        throw new AssertionError("No vertex " + name);
+    }
+
+    private static Edge<Integer> first(Iterable<Edge<Integer>> edges) {
+        return edges.iterator().next();
+    }
+
+    @Theory
+    public void builtVerticesInInsertionOrder(Built f) {
+        Graph<String, Integer> g = f.init();
+        Iterator<Vertex<String>> it = g.vertices().iterator();
+        assertEquals("Hi", it.next().get());
+        assertEquals("Bye", it.next().get());
+        assertEquals("Yo", it.next().get());
+        assertTrue(!it.hasNext());
+    }
+
+    @Theory
+    public void builtEdgesAllThere(Built f) {
+        Graph<String, Integer> g = f.init();
+        Map<Integer, String> seen = new HashMap<Integer, String>();
+        for (Edge<Integer> e : g.edges()) {
+            seen.put(e.get(), g.from(e).get() + "->" + g.to(e).get());
+        }
+        assertEquals(3, seen.size());
+        assertEquals("Hi->Bye", seen.get(43));
+        assertEquals("Bye->Hi", seen.get(12));
+        assertEquals("Hi->Yo", seen.get(7));
+    }
+
+    @Theory
+    public void builtOutgoingInInsertionOrder(Built f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> hi = find(g, "Hi");
+        Iterator<Edge<Integer>> it = g.outgoing(hi).iterator();
+        Edge<Integer> one = it.next();
+        Edge<Integer> two = it.next();
+        assertTrue(!it.hasNext());
+        assertEquals(43, (int) one.get());
+        assertEquals(hi, g.from(one));
+        assertEquals(find(g, "Bye"), g.to(one));
+        assertEquals(7, (int) two.get());
+        assertEquals(find(g, "Yo"), g.to(two));
+    }
+
+    @Theory
+    public void builtIncoming(Built f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> hi = find(g, "Hi");
+        Iterator<Edge<Integer>> it = g.incoming(hi).iterator();
+        Edge<Integer> in = it.next();
+        assertTrue(!it.hasNext());
+        assertEquals(12, (int) in.get());
+        assertEquals(find(g, "Bye"), g.from(in));
+        assertEquals(hi, g.to(in));
+    }
+
+    @Theory
+    public void builtVertexOnlyIncoming(Built f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> yo = find(g, "Yo");
+        assertTrue(!g.outgoing(yo).iterator().hasNext());
+        assertEquals(7, (int) first(g.incoming(yo)).get());
+    }
+
+    @Theory
+    public void builtCursorMatchesIterables(Built f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> hi = find(g, "Hi");
+        Cursor<String, Integer> cur = g.cursor();
+        cur.outgoing(hi);
+        for (Edge<Integer> e : g.outgoing(hi)) {
+            assertTrue(cur.next());
+            assertEquals(e, cur.edge());
+            assertEquals(g.to(e), cur.other());
+        }
+        assertTrue(!cur.next());
+        cur.incoming(hi);
+        for (Edge<Integer> e : g.incoming(hi)) {
+            assertTrue(cur.next());
+            assertEquals(e, cur.edge());
+            assertEquals(g.from(e), cur.other());
+        }
+        assertTrue(!cur.next());
+    }
+
+    @Theory
+    public void builtPuttedValues(Built f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> hi = find(g, "Hi");
+        first(g.outgoing(hi)).put(99);
+        hi.put("Putted");
+        assertEquals("Putted", g.vertices().iterator().next().get());
+        assertEquals(99, (int) first(g.outgoing(hi)).get());
+    }
+
+    @Theory
+    public void builtLabelsAndClear(Built f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> hi = find(g, "Hi");
+        Edge<Integer> e = first(g.outgoing(hi));
+        assertEquals(null, g.label(hi));
+        assertEquals(null, g.label(e));
+        g.label(hi, "x");
+        g.label(e, "y");
+        assertEquals("x", g.label(hi));
+        assertEquals("y", g.label(e));
+        assertEquals(null, g.label(find(g, "Yo")));
+        g.clearLabels();
+        assertEquals(null, g.label(hi));
+        assertEquals(null, g.label(e));
+        g.label(e, "z");
+        assertEquals("z", g.label(e));
+    }
+
+    @Theory
+    public void builtIdsDistinctAndBounded(Built f) {
+        Graph<String, Integer> g = f.init();
+        boolean[] used = new boolean[g.ids()];
+        for (Vertex<String> v : g.vertices()) {
+            int id = g.id(v);
+            assertTrue(id >= 0 && id < g.ids() && !used[id]);
+            used[id] = true;
+        }
+    }
+
+    @Theory @Test (expected=NoSuchElementException.class)
+    public void builtCursorNoEdgeBeforeNext(Built f) {
+        Graph<String, Integer> g = f.init();
+        Cursor<String, Integer> cur = g.cursor();
+        cur.outgoing(find(g, "Hi"));
+        cur.edge();
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void builtOutgoingStopsNull(Built f) {
+        f.init().outgoing(null);
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void builtIncomingStopsForeign(Built f) {
+        Graph<String, Integer> g = f.init();
+        g.incoming(find(f.init(), "Hi"));
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void builtToStopsForeign(Built f) {
+        Graph<String, Integer> g = f.init();
+        g.to(f.init().edges().iterator().next());
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void builtLabelVertexStopsForeign(Built f) {
+        Graph<String, Integer> g = f.init();
+        g.label(find(f.init(), "Hi"), "x");
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void builtGetLabelEdgeStopsNull(Built f) {
+        f.init().label((Edge<Integer>)null);
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void builtCantAssignNullLabelEdge(Built f) {
+        Graph<String, Integer> g = f.init();
+        g.label(g.edges().iterator().next(), null);
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void builtCursorStopsForeign(Built f) {
+        Graph<String, Integer> g = f.init();
+        g.cursor().incoming(find(f.init(), "Yo"));
+    }
+
+    @Test
+    public void sparseEdgeLookup() {
+        SparseGraph<String, Integer> g = small();
+        Vertex<String> hi = find(g, "Hi");
+        Vertex<String> bye = find(g, "Bye");
+        Vertex<String> yo = find(g, "Yo");
+        assertEquals(43, (int) g.edge(hi, bye).get());
+        assertEquals(12, (int) g.edge(bye, hi).get());
+        assertEquals(null, g.edge(yo, hi));
+        g.remove(g.edge(hi, yo));
+        assertEquals(null, g.edge(hi, yo));
+        assertEquals(43, (int) g.edge(hi, bye).get());
+    }
+
+    @Test (expected=IllegalArgumentException.class)
+    public void sparseEdgeLookupStopsForeign() {
+        SparseGraph<String, Integer> g = small();
+        g.edge(find(g, "Hi"), find(small(), "Bye"));
+    }
+
     @Theory
     public void verticesInitiallyEmpty(Fixture f) {
         Graph<String, Integer> g = f.init();
@@ -542,4 +782,171 @@ public class TestGraph {
         Edge<Integer> ins = g.insert(a, b, 43);
         g.label(ins, null);
     }
+
+    @Theory
+    public void cursorWalksOutgoing(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> a = g.insert("Hi");
+        Vertex<String> b = g.insert("Bye");
+        Vertex<String> c = g.insert("Yo");
+        Edge<Integer> ab = g.insert(a, b, 43);
+        Edge<Integer> ac = g.insert(a, c, 7);
+        Cursor<String, Integer> cur = g.cursor();
+        cur.outgoing(a);
+        assertTrue(cur.next());
+        assertEquals(ab, cur.edge());
+        assertEquals(b, cur.other());
+        assertTrue(cur.next());
+        assertEquals(ac, cur.edge());
+        assertEquals(c, cur.other());
+        assertTrue(!cur.next());
+    }
+
+    @Theory
+    public void cursorWalksIncoming(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> a = g.insert("Hi");
+        Vertex<String> b = g.insert("Bye");
+        Edge<Integer> ab = g.insert(a, b, 43);
+        Cursor<String, Integer> cur = g.cursor();
+        cur.incoming(a);
+        assertTrue(!cur.next());
+        cur.incoming(b);
+        assertTrue(cur.next());
+        assertEquals(ab, cur.edge());
+        assertEquals(a, cur.other());
+        assertTrue(!cur.next());
+    }
+
+    @Theory @Test (expected=NoSuchElementException.class)
+    public void cursorNoEdgeBeforeNext(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> a = g.insert("Hi");
+        Vertex<String> b = g.insert("Bye");
+        g.insert(a, b, 43);
+        Cursor<String, Integer> cur = g.cursor();
+        cur.outgoing(a);
+        cur.edge();
+    }
+
+    @Theory @Test (expected=ConcurrentModificationException.class)
+    public void cursorNoticesChanges(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> a = g.insert("Hi");
+        Vertex<String> b = g.insert("Bye");
+        Vertex<String> c = g.insert("Yo");
+        g.insert(a, b, 43);
+        Cursor<String, Integer> cur = g.cursor();
+        cur.outgoing(a);
+        g.insert(a, c, 7);
+        cur.next();
+    }
+
+    @Theory @Test (expected=IllegalArgumentException.class)
+    public void cursorStopsForeign(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Graph<String, Integer> h = f.init();
+        Vertex<String> a = h.insert("Hi");
+        g.cursor().outgoing(a);
+    }
+
+    @Theory
+    public void manyInsertsAndRemovesStayConsistent(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        List<Vertex<String>> vs = new ArrayList<Vertex<String>>();
+        for (int i = 0; i < 50; i++) {
+            vs.add(g.insert("V" + i));
+        }
+        Map<Integer, Edge<Integer>> live = new HashMap<>();
+        Random random = new Random(226);
+        for (int step = 0; step < 20000; step++) {
+            int a = random.nextInt(vs.size());
+            int b = random.nextInt(vs.size());
+            Edge<Integer> e = live.get(a * 100 + b);
+            if (e != null) {
+                assertEquals(a * 100 + b, (int) g.remove(e));
+                live.remove(a * 100 + b);
+            } else if (a != b) {
+                live.put(a * 100 + b, g.insert(vs.get(a), vs.get(b),
+                    a * 100 + b));
+            }
+        }
+
+        int edges = 0;
+        for (Edge<Integer> e : g.edges()) {
+            assertEquals(live.get(e.get()), e);
+            edges++;
+        }
+        assertEquals(live.size(), edges);
+        for (int a = 0; a < vs.size(); a++) {
+            int outs = 0;
+            for (Edge<Integer> e : g.outgoing(vs.get(a))) {
+                assertEquals(vs.get(a), g.from(e));
+                assertEquals(a, e.get() / 100);
+                outs++;
+            }
+            int ins = 0;
+            for (Edge<Integer> e : g.incoming(vs.get(a))) {
+                assertEquals(vs.get(a), g.to(e));
+                ins++;
+            }
+            int expectOut = 0;
+            int expectIn = 0;
+            for (int key : live.keySet()) {
+                expectOut += key / 100 == a ? 1 : 0;
+                expectIn += key % 100 == a ? 1 : 0;
+            }
+            assertEquals(expectOut, outs);
+            assertEquals(expectIn, ins);
+        }
+    }
+
+    @Theory
+    public void removedVertexSlotReused(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> a = g.insert("A");
+        Vertex<String> b = g.insert("B");
+        Vertex<String> c = g.insert("C");
+        g.remove(a);
+        Vertex<String> d = g.insert("D");
+        g.insert(d, b, 1);
+        g.insert(c, d, 2);
+        int count = 0;
+        for (Vertex<String> v : g.vertices()) {
+            assertTrue(v != a);
+            count++;
+        }
+        assertEquals(3, count);
+        assertEquals(d, g.to(g.outgoing(c).iterator().next()));
+    }
+
+    @Theory
+    public void idsAreDistinctAndBounded(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> a = g.insert("A");
+        Vertex<String> b = g.insert("B");
+        assertTrue(g.id(a) != g.id(b));
+        assertTrue(g.id(a) >= 0 && g.id(a) < g.ids());
+        assertTrue(g.id(b) >= 0 && g.id(b) < g.ids());
+        g.remove(a);
+        Vertex<String> c = g.insert("C");
+        assertTrue(g.id(c) != g.id(b));
+        assertTrue(g.id(c) < g.ids());
+    }
+
+    @Theory
+    public void relabelAfterClear(Fixture f) {
+        Graph<String, Integer> g = f.init();
+        Vertex<String> a = g.insert("A");
+        Vertex<String> b = g.insert("B");
+        Edge<Integer> e = g.insert(a, b, 1);
+        g.label(a, "x");
+        g.label(e, "y");
+        g.clearLabels();
+        assertEquals(null, g.label(a));
+        assertEquals(null, g.label(e));
+        g.label(b, "z");
+        assertEquals("z", g.label(b));
+        assertEquals(null, g.label(a));
+    }
 }
@@ -0,0 +1,57 @@
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class TestIntLabels {
+    private IntLabels labels;
+
+    @Before
+    public void setupLabels() {
+        this.labels = new IntLabels(4);
+    }
+
+    @Test
+    public void initiallyUnlabeled() {
+        assertTrue(!this.labels.has(0));
+        assertEquals(-1, this.labels.get(3));
+        assertEquals(-1, this.labels.get(100));
+    }
+
+    @Test
+    public void setThenGet() {
+        this.labels.set(2, 42);
+        assertTrue(this.labels.has(2));
+        assertEquals(42, this.labels.get(2));
+        assertTrue(!this.labels.has(1));
+    }
+
+    @Test
+    public void growsForLargeIds() {
+        this.labels.set(1000, 7);
+        assertEquals(7, this.labels.get(1000));
+        assertTrue(!this.labels.has(999));
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        this.labels.set(0, 1);
+        this.labels.set(3, 2);
+        this.labels.clear();
+        assertTrue(!this.labels.has(0));
+        assertTrue(!this.labels.has(3));
+        this.labels.set(3, 5);
+        assertEquals(5, this.labels.get(3));
+    }
+
+    @Test
+    public void twoMapsOverSameIds() {
+        IntLabels other = new IntLabels(4);
+        this.labels.set(1, 10);
+        other.set(1, 20);
+        this.labels.clear();
+        assertEquals(-1, this.labels.get(1));
+        assertEquals(20, other.get(1));
+    }
+}
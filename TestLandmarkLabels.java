@@ -0,0 +1,199 @@
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+
+public class TestLandmarkLabels {
+    // Every distance and path from labels against plain searches.
+    private static void check(IntGraph g, LandmarkLabels labels) {
+        int n = g.order();
+        int[] distance = new int[n];
+        int[] parent = new int[n];
+        for (int s = 0; s < n; s++) {
+            ParallelBfs.sequential(g, s, distance, parent);
+            for (int t = 0; t < n; t++) {
+                assertEquals(distance[t], labels.distance(s, t));
+                int[] path = labels.path(s, t);
+                if (distance[t] < 0) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(distance[t] + 1, path.length);
+                assertEquals(s, path[0]);
+                assertEquals(t, path[path.length - 1]);
+                for (int i = 0; i + 1 < path.length; i++) {
+                    assertTrue(adjacent(g, path[i], path[i + 1]));
+                }
+            }
+        }
+    }
+
+    private static boolean adjacent(IntGraph g, int v, int w) {
+        for (int k = g.begin(v); k < g.end(v); k++) {
+            if (g.target(k) == w) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void exactOnRandomGraphs() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (int seed = 0; seed < 10; seed++) {
+                int n = 1 + seed * 37;
+                IntGraph g = RandomGraphs.symmetric(n, n + seed * 11, seed);
+                check(g, LandmarkLabels.build(g, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void exactOnLongPath() {
+        // a path is the worst case for pruning
+        int n = 200;
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int v = 0; v + 1 < n; v++) {
+            from.add(v);
+            to.add(v + 1);
+        }
+        IntGraph g = ArrayGraph.symmetric(n, from, to);
+        LandmarkLabels labels = LandmarkLabels.build(g);
+        assertEquals(n - 1, labels.distance(0, n - 1));
+        assertEquals(n - 1, labels.path(n - 1, 0).length - 1);
+    }
+
+    @Test
+    public void starHasOneHub() {
+        // the center covers every pair, so one label per leaf
+        int n = 50;
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int v = 1; v < n; v++) {
+            from.add(0);
+            to.add(v);
+        }
+        IntGraph g = ArrayGraph.symmetric(n, from, to);
+        LandmarkLabels labels = LandmarkLabels.build(g);
+        assertEquals(1 + 2 * (n - 1), labels.size());
+        check(g, labels);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooDeep() {
+        int n = 300;
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int v = 0; v + 1 < n; v++) {
+            from.add(v);
+            to.add(v + 1);
+        }
+        LandmarkLabels.build(ArrayGraph.symmetric(n, from, to));
+    }
+
+    @Test
+    public void loadForSource() throws IOException {
+        IntGraph g = RandomGraphs.symmetric(100, 300, 3);
+        LandmarkLabels labels = LandmarkLabels.build(g);
+        Path source = Files.createTempFile("movies", ".txt");
+        Path file = Files.createTempFile("labels", ".labels");
+        try {
+            Files.write(source, new byte[] {1, 2, 3});
+            labels.save(file, BaconIndex.key(source));
+            assertEquals(labels.size(),
+                LandmarkLabels.load(file, source, g).size());
+            // touched but the same: hashed, still matches
+            Files.setLastModifiedTime(source, FileTime.fromMillis(0));
+            assertEquals(labels.size(),
+                LandmarkLabels.load(file, source, g).size());
+            Files.write(source, new byte[] {1, 2, 4});
+            assertNull(LandmarkLabels.load(file, source, g));
+        } finally {
+            Files.delete(source);
+            Files.delete(file);
+        }
+    }
+
+    // Labels saved with key, with an int of the file overwritten.
+    private static LandmarkLabels damaged(IntGraph g, LandmarkLabels labels,
+          Path file, int at, int value) throws IOException {
+        byte[] key = {1, 2, 3};
+        labels.save(file, key);
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(at, value);
+        Files.write(file, bytes);
+        return LandmarkLabels.load(file, key, g);
+    }
+
+    @Test
+    public void damagedFiles() throws IOException {
+        int n = 50;
+        IntGraph g = RandomGraphs.symmetric(n, 150, 5);
+        LandmarkLabels labels = LandmarkLabels.build(g);
+        Path file = Files.createTempFile("labels", ".labels");
+        try {
+            // magic, version, key length, 3 key bytes, order, size
+            int offsets = 12 + 3 + 8;
+            int hubs = offsets + 4 * (n + 1);
+            assertNull(damaged(g, labels, file, 8, -1));
+            assertNull(damaged(g, labels, file, 8, Integer.MAX_VALUE));
+            assertNull(damaged(g, labels, file, offsets - 4, 1 << 30));
+            assertNull(damaged(g, labels, file, offsets + 4 * n,
+                labels.size() + 1));
+            assertNull(damaged(g, labels, file, offsets + 4, -5));
+            assertNull(damaged(g, labels, file, hubs, n));
+            // the same hub twice in a row for some vertex
+            labels.save(file, new byte[] {1, 2, 3});
+            ByteBuffer saved = ByteBuffer.wrap(Files.readAllBytes(file));
+            int v = 0;
+            while (saved.getInt(offsets + 4 * (v + 1))
+                   - saved.getInt(offsets + 4 * v) < 2) {
+                v++;
+            }
+            int first = hubs + 4 * saved.getInt(offsets + 4 * v);
+            assertNull(damaged(g, labels, file, first + 4,
+                saved.getInt(first)));
+            // and the untouched value loads fine
+            check(g, damaged(g, labels, file, first + 4,
+                saved.getInt(first + 4)));
+
+            byte[] bytes = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+            assertNull(LandmarkLabels.load(file, new byte[] {1, 2, 3}, g));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void saveAndLoad() throws IOException {
+        IntGraph g = RandomGraphs.symmetric(500, 1500, 7);
+        LandmarkLabels labels = LandmarkLabels.build(g);
+        Path file = Files.createTempFile("labels", ".labels");
+        try {
+            byte[] key = {1, 2, 3};
+            labels.save(file, key);
+            LandmarkLabels loaded = LandmarkLabels.load(file, key, g);
+            assertEquals(labels.size(), loaded.size());
+            check(g, loaded);
+            assertNull(LandmarkLabels.load(file, new byte[] {1, 2, 4}, g));
+            assertArrayEquals(labels.path(3, 400), loaded.path(3, 400));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        assertNull(LandmarkLabels.load(file, new byte[0], g));
+    }
+}
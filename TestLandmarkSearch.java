@@ -0,0 +1,146 @@
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+public class TestLandmarkSearch {
+    // Random graph on n vertices with about m edges, each one way
+    // or both ways.
+    private static List<Vertex<Integer>> random(Graph<Integer, String> g,
+          int n, int m, long seed) {
+        Random random = new Random(seed);
+        List<Vertex<Integer>> vertices = new ArrayList<Vertex<Integer>>();
+        for (int i = 0; i < n; i++) {
+            vertices.add(g.insert(i));
+        }
+        for (int i = 0; i < m; i++) {
+            Vertex<Integer> a = vertices.get(random.nextInt(n));
+            Vertex<Integer> b = vertices.get(random.nextInt(n));
+            if (a == b || connected(g, a, b)) {
+                continue;
+            }
+            g.insert(a, b, "e");
+            if (random.nextBoolean() && !connected(g, b, a)) {
+                g.insert(b, a, "e");
+            }
+        }
+        return vertices;
+    }
+
+    private static boolean connected(Graph<Integer, String> g,
+          Vertex<Integer> a, Vertex<Integer> b) {
+        for (Edge<String> e : g.outgoing(a)) {
+            if (g.to(e) == b) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Length of a shortest path by plain breadth-first search.
+    private static int distance(Graph<Integer, String> g,
+          Vertex<Integer> s, Vertex<Integer> t) {
+        IntLabels d = new IntLabels(g.ids());
+        List<Vertex<Integer>> queue = new ArrayList<Vertex<Integer>>();
+        d.set(g.id(s), 0);
+        queue.add(s);
+        for (int head = 0; head < queue.size(); head++) {
+            Vertex<Integer> v = queue.get(head);
+            for (Edge<String> e : g.outgoing(v)) {
+                Vertex<Integer> w = g.to(e);
+                if (!d.has(g.id(w))) {
+                    d.set(g.id(w), d.get(g.id(v)) + 1);
+                    queue.add(w);
+                }
+            }
+        }
+        return d.get(g.id(t));
+    }
+
+    private static void check(Graph<Integer, String> g,
+          List<Vertex<Integer>> vertices, LandmarkSearch<Integer, String> s) {
+        for (Vertex<Integer> a : vertices) {
+            for (Vertex<Integer> b : vertices) {
+                int d = distance(g, a, b);
+                List<Vertex<Integer>> path = s.path(a, b);
+                if (d < 0) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(d + 1, path.size());
+                assertEquals(a, path.get(0));
+                assertEquals(b, path.get(d));
+                for (int i = 0; i < d; i++) {
+                    assertTrue(connected(g, path.get(i), path.get(i + 1)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void exactOnDirectedGraphs() {
+        for (int seed = 0; seed < 8; seed++) {
+            Graph<Integer, String> g = new SparseGraph<Integer, String>();
+            List<Vertex<Integer>> vertices = random(g, 60, 90 + 10 * seed,
+                seed);
+            for (int k : new int[] {0, 1, 4, 16}) {
+                check(g, vertices, new LandmarkSearch<Integer, String>(g, k));
+            }
+        }
+    }
+
+    @Test
+    public void fewerExpandedOnGrid() {
+        // 30 by 30 grid, corner to corner
+        int n = 30;
+        Graph<Integer, String> g = new SparseGraph<Integer, String>();
+        List<Vertex<Integer>> vertices = new ArrayList<Vertex<Integer>>();
+        for (int i = 0; i < n * n; i++) {
+            vertices.add(g.insert(i));
+        }
+        for (int i = 0; i < n * n; i++) {
+            if (i % n + 1 < n) {
+                g.insert(vertices.get(i), vertices.get(i + 1), "e");
+                g.insert(vertices.get(i + 1), vertices.get(i), "e");
+            }
+            if (i + n < n * n) {
+                g.insert(vertices.get(i), vertices.get(i + n), "e");
+                g.insert(vertices.get(i + n), vertices.get(i), "e");
+            }
+        }
+        Vertex<Integer> s = vertices.get(n + 1);
+        Vertex<Integer> t = vertices.get(n * n - n - 2);
+        LandmarkSearch<Integer, String> bfs =
+            new LandmarkSearch<Integer, String>(g, 0);
+        LandmarkSearch<Integer, String> alt =
+            new LandmarkSearch<Integer, String>(g, 8);
+        assertEquals(bfs.path(s, t).size(), alt.path(s, t).size());
+        assertTrue(alt.expanded() < bfs.expanded() / 4);
+    }
+
+    @Test
+    public void landmarksAreBusiest() {
+        Graph<Integer, String> g = new SparseGraph<Integer, String>();
+        Vertex<Integer> hub = g.insert(0);
+        for (int i = 1; i < 10; i++) {
+            Vertex<Integer> v = g.insert(i);
+            g.insert(hub, v, "e");
+            g.insert(v, hub, "e");
+        }
+        LandmarkSearch<Integer, String> s =
+            new LandmarkSearch<Integer, String>(g, 3);
+        // everything else is within two edges of the hub
+        assertEquals(1, s.landmarks().size());
+        assertEquals(hub, s.landmarks().get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLandmarks() {
+        new LandmarkSearch<Integer, String>(
+            new SparseGraph<Integer, String>(), -1);
+    }
+}
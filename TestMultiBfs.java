@@ -0,0 +1,66 @@
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import java.util.Random;
+
+
+public class TestMultiBfs {
+    // Histogram from a plain search.
+    private static long[] histogram(IntGraph g, int source) {
+        int[] distance = new int[g.order()];
+        ParallelBfs.sequential(g, source, distance, new int[g.order()]);
+        int max = 0;
+        for (int d : distance) {
+            max = Math.max(max, d);
+        }
+        long[] h = new long[max + 1];
+        for (int d : distance) {
+            if (d >= 0) {
+                h[d]++;
+            }
+        }
+        return h;
+    }
+
+    @Test
+    public void sameAsSingleSearches() {
+        // more than one batch, with repeated sources
+        IntGraph g = RandomGraphs.symmetric(3000, 3500, 15);
+        int[] sources = new int[150];
+        Random random = new Random(1);
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = random.nextInt(100);
+        }
+        MultiBfs result = MultiBfs.run(g, sources);
+        assertEquals(sources.length, result.size());
+        for (int i = 0; i < sources.length; i++) {
+            assertEquals(sources[i], result.source(i));
+            assertArrayEquals(histogram(g, sources[i]),
+                result.histogram(i));
+        }
+    }
+
+    @Test
+    public void averageAndReached() {
+        // path 0-1-2-3 and lone vertex 4
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int v = 0; v < 3; v++) {
+            from.add(v);
+            to.add(v + 1);
+        }
+        IntGraph g = ArrayGraph.symmetric(5, from, to);
+        MultiBfs result = MultiBfs.run(g, new int[] {0, 1, 4});
+        assertArrayEquals(new long[] {1, 1, 1, 1}, result.histogram(0));
+        assertEquals(4, result.reached(0));
+        assertEquals(2.0, result.average(0), 1e-9);
+        assertEquals(4.0 / 3, result.average(1), 1e-9);
+        assertArrayEquals(new long[] {1}, result.histogram(2));
+        assertEquals(0.0, result.average(2), 1e-9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sourcesMustBeVertices() {
+        MultiBfs.run(RandomGraphs.symmetric(10, 10, 1), new int[] {3, -1});
+    }
+}
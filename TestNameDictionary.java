@@ -0,0 +1,74 @@
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+
+public class TestNameDictionary {
+    private NameDictionary names;
+
+    @Before
+    public void setupDictionary() {
+        this.names = new NameDictionary();
+    }
+
+    @Test
+    public void idsAreDenseInOrderOfFirstIntern() {
+        assertEquals(0, this.names.intern("Bacon, Kevin"));
+        assertEquals(1, this.names.intern("Footloose"));
+        assertEquals(0, this.names.intern("Bacon, Kevin"));
+        assertEquals(2, this.names.intern(""));
+        assertEquals(3, this.names.size());
+    }
+
+    @Test
+    public void lookupBothWays() {
+        this.names.intern("Bacon, Kevin");
+        this.names.intern("Gr\u00fcn, Anna");
+        assertEquals(1, this.names.id("Gr\u00fcn, Anna"));
+        assertEquals("Gr\u00fcn, Anna", this.names.name(1));
+        assertEquals(-1, this.names.id("Grun, Anna"));
+    }
+
+    @Test
+    public void manyNamesSurviveGrowing() {
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, this.names.intern("Actor " + i));
+        }
+        for (int i = 0; i < 100000; i++) {
+            assertEquals(i, this.names.id("Actor " + i));
+            assertEquals("Actor " + i, this.names.name(i));
+        }
+    }
+
+    @Test
+    public void wrappedTablesFindTheSameIds() {
+        for (int i = 0; i < 1000; i++) {
+            this.names.intern("Movie " + i);
+        }
+        NameDictionary wrapped = NameDictionary.wrap(this.names.bytes(),
+            this.names.offsets(), this.names.table());
+        assertEquals(1000, wrapped.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, wrapped.id("Movie " + i));
+            assertEquals("Movie " + i, wrapped.name(i));
+        }
+        assertEquals(-1, wrapped.id("Movie 1000"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void wrappedTablesTakeNoNewNames() {
+        this.names.intern("Footloose");
+        NameDictionary.wrap(this.names.bytes(), this.names.offsets(),
+            this.names.table()).intern("Tremors");
+    }
+
+    @Test
+    public void internFromAnotherDictionary() {
+        NameDictionary other = new NameDictionary();
+        other.intern("A");
+        other.intern("B");
+        this.names.intern("B");
+        assertEquals(1, this.names.intern(other, 0));
+        assertEquals(0, this.names.intern(other, 1));
+    }
+}
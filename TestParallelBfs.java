@@ -0,0 +1,76 @@
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import java.util.concurrent.ForkJoinPool;
+
+
+public class TestParallelBfs {
+    private static void check(IntGraph g, int root, ForkJoinPool pool) {
+        int n = g.order();
+        int[] d1 = new int[n];
+        int[] p1 = new int[n];
+        int[] d2 = new int[n];
+        int[] p2 = new int[n];
+        ParallelBfs.sequential(g, root, d1, p1);
+        ParallelBfs.search(g, root, d2, p2, pool);
+        assertArrayEquals(d1, d2);
+        for (int v = 0; v < n; v++) {
+            if (v == root || d2[v] < 0) {
+                assertEquals(-1, p2[v]);
+                continue;
+            }
+            // first neighbor one level closer, in adjacency order
+            int first = -1;
+            for (int k = g.begin(v); k < g.end(v) && first < 0; k++) {
+                if (d2[g.target(k)] == d2[v] - 1) {
+                    first = g.target(k);
+                }
+            }
+            assertEquals(first, p2[v]);
+        }
+    }
+
+    @Test
+    public void sameDistancesAsSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int seed = 0; seed < 20; seed++) {
+                int n = 1 + seed * 997;
+                check(RandomGraphs.symmetric(n, 2 * n, seed), seed % n, pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void denseGraphGoesBottomUp() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            check(RandomGraphs.symmetric(5000, 200000, 7), 0, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void unreachableVertices() {
+        IntList from = new IntList();
+        IntList to = new IntList();
+        from.add(0);
+        to.add(1);
+        from.add(2);
+        to.add(3);
+        int[] d = new int[4];
+        int[] p = new int[4];
+        ParallelBfs.search(ArrayGraph.symmetric(4, from, to), 1, d, p);
+        assertArrayEquals(new int[] {1, 0, -1, -1}, d);
+        assertArrayEquals(new int[] {1, -1, -1, -1}, p);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rootMustBeVertex() {
+        ParallelBfs.search(RandomGraphs.symmetric(10, 10, 1), 10,
+            new int[10], new int[10]);
+    }
+}
@@ -0,0 +1,241 @@
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+
+public class TestParallelParser {
+    private static final String MOVIES =
+        "1/A/B/C/Bacon, Kevin\n"
+        + "2/Bacon, Kevin/F\r\n"
+        + "3/A/C/D\n"
+        + "4/E/F\r"
+        + "5/E/Bacon, Kevin/C\n"
+        + "6/Gr\u00fcn, Anna/A\n"
+        + "7/F/Gr\u00fcn, Anna";
+
+    private static void assertSame(Database expected, Database actual) {
+        IntGraph e = expected.graph();
+        IntGraph a = actual.graph();
+        assertEquals(e.order(), a.order());
+        for (int v = 0; v < e.order(); v++) {
+            assertEquals(expected.name(v), actual.name(v));
+            assertEquals(expected.isMovie(v), actual.isMovie(v));
+            assertEquals(e.end(v) - e.begin(v), a.end(v) - a.begin(v));
+            for (int i = 0; i < e.end(v) - e.begin(v); i++) {
+                assertEquals(e.target(e.begin(v) + i),
+                    a.target(a.begin(v) + i));
+            }
+        }
+    }
+
+    private static void check(String contents, int chunk) throws IOException {
+        Path file = Files.createTempFile("movies", ".txt");
+        try {
+            Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+            assertSame(Database.parse(file.toString()),
+                ParallelParser.parse(file, chunk));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void checkStream(String contents, int chunk)
+        throws IOException {
+        Path file = Files.createTempFile("movies", ".txt");
+        Path gz = Files.createTempFile("movies", ".gz");
+        try {
+            byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+            Files.write(file, bytes);
+            try (OutputStream out = new GZIPOutputStream(
+                    Files.newOutputStream(gz))) {
+                out.write(bytes);
+            }
+            Database expected = Database.parse(file.toString());
+            assertSame(expected, ParallelParser.parse(
+                new ByteArrayInputStream(bytes), chunk));
+            try (InputStream in = InputPipe.open(gz.toString())) {
+                assertSame(expected, ParallelParser.parse(in, chunk));
+            }
+            assertSame(expected, Database.load(gz.toString()));
+        } finally {
+            Files.delete(file);
+            Files.delete(gz);
+        }
+    }
+
+    @Test
+    public void oneRangeSameAsSequential() throws IOException {
+        check(MOVIES, 1 << 20);
+    }
+
+    @Test
+    public void manyRangesSameAsSequential() throws IOException {
+        for (int chunk = 1; chunk < 40; chunk++) {
+            check(MOVIES, chunk);
+        }
+    }
+
+    @Test
+    public void trailingNewlineSameAsSequential() throws IOException {
+        check(MOVIES + "\n", 7);
+    }
+
+    @Test
+    public void fieldsSameAsReadLineAndSplit() throws IOException {
+        String tricky = "1/A//B/\n2\n\n3/B/C///\r\n/D\r\r4/\n5/E";
+        List<String> expected = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new StringReader(tricky));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            for (String name : line.split("/")) {
+                if (!expected.contains(name)) {
+                    expected.add(name);
+                }
+            }
+        }
+
+        Path file = Files.createTempFile("movies", ".txt");
+        try {
+            Files.write(file, tricky.getBytes(StandardCharsets.UTF_8));
+            Database db = Database.parse(file.toString());
+            assertEquals(db.order(), expected.size());
+            for (int v = 0; v < db.order(); v++) {
+                assertEquals(db.name(v), expected.get(v));
+            }
+            check(tricky, 3);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        check("", 7);
+        checkStream("", 7);
+    }
+
+    @Test
+    public void streamSameAsSequential() throws IOException {
+        for (int chunk = 1; chunk < 40; chunk += 3) {
+            checkStream(MOVIES, chunk);
+        }
+        checkStream(MOVIES + "\n", 1 << 20);
+    }
+
+    @Test
+    public void pipeReadsPlainAndGzipped() throws IOException {
+        // more than one block, so the queue is used
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; b.length() < 3 << 20; i++) {
+            b.append(i).append("/A").append(i % 1000).append("/B\n");
+        }
+        byte[] bytes = b.toString().getBytes(StandardCharsets.UTF_8);
+        Path file = Files.createTempFile("movies", ".txt");
+        Path gz = Files.createTempFile("movies", ".gz");
+        try {
+            Files.write(file, bytes);
+            try (OutputStream out = new GZIPOutputStream(
+                    Files.newOutputStream(gz))) {
+                out.write(bytes);
+            }
+            for (Path p : new Path[] {file, gz}) {
+                try (InputStream in = InputPipe.open(p.toString())) {
+                    assertArrayEquals(bytes, in.readAllBytes());
+                }
+            }
+        } finally {
+            Files.delete(file);
+            Files.delete(gz);
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void pipeMissingFile() throws IOException {
+        InputPipe.open("no such file");
+    }
+
+    @Test
+    public void snapshotOfGzippedDatabase() throws IOException {
+        Path file = Files.createTempFile("movies", ".txt");
+        Path gz = Files.createTempFile("movies", ".gz");
+        Path snap = Paths.get(gz + ".snap");
+        try {
+            byte[] bytes = MOVIES.getBytes(StandardCharsets.UTF_8);
+            Files.write(file, bytes);
+            try (OutputStream out = new GZIPOutputStream(
+                    Files.newOutputStream(gz))) {
+                out.write(bytes);
+            }
+            Snapshot.write(gz, snap);
+            assertFalse(Snapshot.isStale(snap, gz));
+            Database expected = Database.parse(file.toString());
+            assertSame(expected, Snapshot.open(snap));
+            // picked up in place of the gzipped text
+            assertSame(expected, Database.load(gz.toString()));
+        } finally {
+            Files.delete(file);
+            Files.delete(gz);
+            Files.deleteIfExists(snap);
+        }
+    }
+
+    @Test
+    public void pipeErrorOnEveryRead() throws IOException {
+        Path gz = Files.createTempFile("movies", ".gz");
+        try {
+            try (OutputStream out = new GZIPOutputStream(
+                    Files.newOutputStream(gz))) {
+                out.write(MOVIES.getBytes(StandardCharsets.UTF_8));
+            }
+            // cut off in the middle of the compressed data
+            byte[] whole = Files.readAllBytes(gz);
+            Files.write(gz, Arrays.copyOf(whole, whole.length / 2));
+            try (InputStream in = InputPipe.open(gz.toString())) {
+                int failed = 0;
+                for (int i = 0; i < 3; i++) {
+                    try {
+                        in.readAllBytes();
+                    } catch (IOException e) {
+                        failed++;
+                    }
+                }
+                assertEquals(3, failed);
+            }
+        } finally {
+            Files.delete(gz);
+        }
+    }
+
+    @Test
+    public void idsByFirstAppearance() throws IOException {
+        Path file = Files.createTempFile("movies", ".txt");
+        try {
+            Files.write(file, MOVIES.getBytes(StandardCharsets.UTF_8));
+            Database db = ParallelParser.parse(file, 5);
+            assertEquals(db.id("1"), 0);
+            assertEquals(db.id("A"), 1);
+            assertEquals(db.id("Bacon, Kevin"), 4);
+            assertEquals(db.id("Nobody"), -1);
+            assertEquals(db.isMovie(db.id("4")), true);
+            assertEquals(db.isMovie(db.id("E")), false);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
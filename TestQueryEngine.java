@@ -0,0 +1,83 @@
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+public class TestQueryEngine {
+    private static final String MOVIES =
+        "1/A/B/C/Bacon, Kevin\n"
+        + "2/Bacon, Kevin/F\n"
+        + "3/A/C/D\n"
+        + "4/E/F\n"
+        + "5/E/Bacon, Kevin/C\n"
+        + "6/X/Y\n";
+
+    private static Database load() throws IOException {
+        Path file = Files.createTempFile("movies", ".txt");
+        try {
+            Files.write(file, MOVIES.getBytes(StandardCharsets.UTF_8));
+            return Database.parse(file.toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void batchSameAsOneAtATime() throws Exception {
+        Database db = load();
+        int n = db.order();
+        int[] sources = new int[n * n * 20];
+        int[] targets = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = i % n;
+            targets[i] = (i / n) % n;
+        }
+        PathSearch search = new PathSearch(db.graph());
+        try (QueryEngine engine = new QueryEngine(db, 4)) {
+            int[][] paths = engine.paths(sources, targets);
+            for (int i = 0; i < sources.length; i++) {
+                assertArrayEquals(search.path(sources[i], targets[i]),
+                    paths[i]);
+            }
+        }
+    }
+
+    @Test
+    public void singleQuery() throws Exception {
+        Database db = load();
+        try (QueryEngine engine = new QueryEngine(db, 2)) {
+            int[] path = engine.path(db.id("D"), db.id("Bacon, Kevin"));
+            assertEquals(5, path.length);
+            assertEquals(null, engine.path(db.id("X"), db.id("A")));
+        }
+    }
+
+    @Test
+    public void unreachableWithoutSearch() throws Exception {
+        Database db = load();
+        try (QueryEngine engine = new QueryEngine(db, 2)) {
+            assertEquals(null, engine.path(db.id("X"), db.id("A")));
+            assertEquals(null, engine.path(db.id("Bacon, Kevin"),
+                db.id("Y")));
+            assertEquals(0, engine.searches());
+            int[][] paths = engine.paths(new int[] {db.id("6"), db.id("A")},
+                new int[] {db.id("E"), db.id("E")});
+            assertEquals(null, paths[0]);
+            assertEquals(5, paths[1].length);
+            assertEquals(1, engine.searches());
+            engine.path(db.id("D"), db.id("F"));
+            assertEquals(2, engine.searches());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void batchNeedsMatchingArrays() throws Exception {
+        try (QueryEngine engine = new QueryEngine(load(), 1)) {
+            engine.paths(new int[2], new int[1]);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+
+public class TestShortestPaths {
+    private static IntGraph graph(int n, int[][] edges) {
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int[] e : edges) {
+            from.add(e[0]);
+            to.add(e[1]);
+        }
+        return ArrayGraph.symmetric(n, from, to);
+    }
+
+    // Ladder of n rungs: from one corner to the opposite one, the
+    // shortest paths cross on any one of the n rungs.
+    private static IntGraph ladder(int n) {
+        List<int[]> edges = new ArrayList<int[]>();
+        for (int i = 0; i < n; i++) {
+            edges.add(new int[] {2 * i, 2 * i + 1});
+            if (i + 1 < n) {
+                edges.add(new int[] {2 * i, 2 * i + 2});
+                edges.add(new int[] {2 * i + 1, 2 * i + 3});
+            }
+        }
+        return graph(2 * n, edges.toArray(new int[0][]));
+    }
+
+    // n diamonds in a row, one after the other: 2^n shortest paths.
+    private static IntGraph diamonds(int n) {
+        List<int[]> edges = new ArrayList<int[]>();
+        for (int i = 0; i < n; i++) {
+            int a = 3 * i;
+            edges.add(new int[] {a, a + 1});
+            edges.add(new int[] {a, a + 2});
+            edges.add(new int[] {a + 1, a + 3});
+            edges.add(new int[] {a + 2, a + 3});
+        }
+        return graph(3 * n + 1, edges.toArray(new int[0][]));
+    }
+
+    private static void checkPath(IntGraph g, int[] p, int s, int t) {
+        assertEquals(s, p[0]);
+        assertEquals(t, p[p.length - 1]);
+        for (int i = 0; i + 1 < p.length; i++) {
+            boolean edge = false;
+            for (int k = g.begin(p[i]); k < g.end(p[i]); k++) {
+                edge |= g.target(k) == p[i + 1];
+            }
+            assertTrue(edge);
+        }
+    }
+
+    @Test
+    public void countMatchesEnumeration() {
+        // 2^5 paths of length 10
+        IntGraph g = diamonds(5);
+        ShortestPaths paths = new ShortestPaths(g, 0, 15);
+        assertEquals(10, paths.distance());
+        assertEquals(32, paths.count());
+        Set<List<Integer>> seen = new HashSet<List<Integer>>();
+        for (Iterator<int[]> it = paths.all(); it.hasNext();) {
+            int[] p = it.next();
+            assertEquals(11, p.length);
+            checkPath(g, p, 0, 15);
+            List<Integer> key = new ArrayList<Integer>();
+            for (int v : p) {
+                key.add(v);
+            }
+            assertTrue(seen.add(key));
+        }
+        assertEquals(32, seen.size());
+    }
+
+    @Test
+    public void countIsLinear() {
+        ShortestPaths paths = new ShortestPaths(ladder(60), 0, 119);
+        assertEquals(60, paths.distance());
+        assertEquals(60, paths.count());
+        // 2^70 paths, too many to count or ever enumerate
+        ShortestPaths far = new ShortestPaths(diamonds(70), 0, 210);
+        assertEquals(Long.MAX_VALUE, far.count());
+        assertTrue(far.all().hasNext());
+    }
+
+    @Test
+    public void noPath() {
+        IntGraph g = graph(3, new int[][] {{0, 1}});
+        ShortestPaths paths = new ShortestPaths(g, 0, 2);
+        assertEquals(-1, paths.distance());
+        assertEquals(0, paths.count());
+        assertTrue(!paths.all().hasNext());
+        assertTrue(!paths.alternatives().hasNext());
+    }
+
+    @Test
+    public void sameVertex() {
+        ShortestPaths paths = new ShortestPaths(ladder(2), 1, 1);
+        assertEquals(1, paths.count());
+        assertArrayEquals(new int[] {1}, paths.all().next());
+    }
+
+    // Lengths of every simple path from v to t, by depth-first
+    // search.
+    private static void simple(IntGraph g, int v, int t, boolean[] on,
+          int length, List<Integer> lengths) {
+        if (v == t) {
+            lengths.add(length);
+            return;
+        }
+        on[v] = true;
+        for (int k = g.begin(v); k < g.end(v); k++) {
+            if (!on[g.target(k)]) {
+                simple(g, g.target(k), t, on, length + 1, lengths);
+            }
+        }
+        on[v] = false;
+    }
+
+    @Test
+    public void alternativesAreKShortestSimplePaths() {
+        Random random = new Random(20);
+        for (int round = 0; round < 30; round++) {
+            int n = 8;
+            List<int[]> edges = new ArrayList<int[]>();
+            for (int a = 0; a < n; a++) {
+                for (int b = a + 1; b < n; b++) {
+                    if (random.nextInt(3) == 0) {
+                        edges.add(new int[] {a, b});
+                    }
+                }
+            }
+            IntGraph g = graph(n, edges.toArray(new int[0][]));
+            List<Integer> lengths = new ArrayList<Integer>();
+            simple(g, 0, n - 1, new boolean[n], 0, lengths);
+            lengths.sort(null);
+
+            List<Integer> found = new ArrayList<Integer>();
+            Set<List<Integer>> seen = new HashSet<List<Integer>>();
+            Iterator<int[]> it = new ShortestPaths(g, 0, n - 1)
+                .alternatives();
+            while (it.hasNext()) {
+                int[] p = it.next();
+                checkPath(g, p, 0, n - 1);
+                List<Integer> key = new ArrayList<Integer>();
+                for (int v : p) {
+                    key.add(v);
+                }
+                assertTrue(seen.add(key));
+                assertEquals(p.length, new HashSet<Integer>(key).size());
+                found.add(p.length - 1);
+            }
+            assertEquals(lengths, found);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verticesMustExist() {
+        new ShortestPaths(ladder(2), 0, 4);
+    }
+}
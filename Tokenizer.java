@@ -0,0 +1,172 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+    Split database text into names without making Strings.
+
+    Scans raw bytes, typically straight from a memory-mapped file,
+    for the "/" between fields and the newlines between movies,
+    and hashes each field on the way. The NameDictionary then only
+    has to compare bytes, and only names it hasn't seen before get
+    copied into its arena; every repeat of a name costs no
+    allocation at all.
+
+    Lines and fields come out exactly as BufferedReader.readLine
+    and String.split("/") would cut them: "\n", "\r", and "\r\n"
+    end a line, trailing empty fields are dropped, and a line
+    without any "/" is a movie without actors.
+*/
+public final class Tokenizer {
+    private static final int SEED = 0x811c9dc5;
+    private static final int PRIME = 0x01000193;
+
+    // Shut up checkstyle.
+    private Tokenizer() {}
+
+    // FNV-1a step, and the final mix applied to every hash.
+    private static int step(int h, byte b) {
+        return (h ^ (b & 0xff)) * PRIME;
+    }
+
+    private static int finish(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+        Hash of a name's bytes.
+        @param b Buffer holding the name.
+        @param from Index of the first byte.
+        @param to Index after the last byte.
+        @return The hash, the same one parse computes.
+    */
+    public static int hash(ByteBuffer b, int from, int to) {
+        int h = SEED;
+        for (int i = from; i < to; i++) {
+            h = step(h, b.get(i));
+        }
+        return finish(h);
+    }
+
+    /**
+        Parse movie lines.
+
+        Each line adds its movie and actors to names and one
+        credit per actor to movies and actors.
+
+        @param b Buffer holding the lines, encoded in UTF-8.
+        @param from Index of the first byte of the first line.
+        @param to Index after the last byte of the last line.
+        @param names Names seen so far.
+        @param isMovie Ids of names that are movies.
+        @param movies Movie of each credit.
+        @param actors Actor of each credit.
+    */
+    public static void parse(ByteBuffer b, int from, int to,
+          NameDictionary names, BitSet isMovie, IntList movies,
+          IntList actors) {
+        // start, end, and hash of each field of the current line
+        int[] fields = new int[3 * 16];
+        int count = 0;
+        boolean slash = false;
+        int line = from;
+        int start = from;
+        int h = SEED;
+
+        for (int i = from; i < to; i++) {
+            byte c = b.get(i);
+            if (c != '/' && c != '\n' && c != '\r') {
+                h = step(h, c);
+                continue;
+            }
+
+            if (3 * count == fields.length) {
+                fields = Arrays.copyOf(fields, 2 * fields.length);
+            }
+            fields[3 * count] = start;
+            fields[3 * count + 1] = i;
+            fields[3 * count + 2] = finish(h);
+            count++;
+            start = i + 1;
+            h = SEED;
+
+            if (c == '/') {
+                slash = true;
+            } else {
+                line(b, fields, count, slash, names, isMovie, movies,
+                    actors);
+                if (c == '\r' && i + 1 < to && b.get(i + 1) == '\n') {
+                    i++;
+                    start = i + 1;
+                }
+                count = 0;
+                slash = false;
+                line = start;
+            }
+        }
+
+        // last line without a newline
+        if (line < to) {
+            if (3 * count == fields.length) {
+                fields = Arrays.copyOf(fields, 2 * fields.length);
+            }
+            fields[3 * count] = start;
+            fields[3 * count + 1] = to;
+            fields[3 * count + 2] = finish(h);
+            line(b, fields, count + 1, slash, names, isMovie, movies,
+                actors);
+        }
+    }
+
+    // One line, cut into fields.
+    private static void line(ByteBuffer b, int[] fields, int count,
+          boolean slash, NameDictionary names, BitSet isMovie,
+          IntList movies, IntList actors) {
+        // split drops trailing empty fields, unless there was no
+        // "/" to split at in the first place
+        if (slash) {
+            while (count > 0 && fields[3 * (count - 1)]
+                  == fields[3 * (count - 1) + 1]) {
+                count--;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+
+        int m = names.intern(b, fields[0], fields[1], fields[2]);
+        isMovie.set(m);
+        for (int f = 1; f < count; f++) {
+            movies.add(m);
+            actors.add(names.intern(b, fields[3 * f], fields[3 * f + 1],
+                fields[3 * f + 2]));
+        }
+    }
+
+    /**
+        Find the end of a line.
+        @param c File to search.
+        @param p Position to start looking at.
+        @param size Size of the file.
+        @return Position just after the first "\n" at or after p,
+            or size if there is none.
+        @throws IOException If the file cannot be read.
+    */
+    public static long align(FileChannel c, long p, long size)
+        throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(4096);
+        while (p < size) {
+            b.clear();
+            int n = c.read(b, p);
+            for (int i = 0; i < n; i++) {
+                if (b.get(i) == '\n') {
+                    return p + i + 1;
+                }
+            }
+            p += n;
+        }
+        return size;
+    }
+}